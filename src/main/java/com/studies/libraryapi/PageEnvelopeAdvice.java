@@ -0,0 +1,92 @@
+package com.studies.libraryapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.studies.libraryapi.api.dto.PageDTO;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shapes paged responses. {@code fields=id,title} keeps only the listed fields of each item
+ * ({@code book.title} selects inside a nested object) in the Jackson encodings. Clients opt in to a {@link PageDTO}
+ * (items, next page and, when asked for, the total) instead of the full {@link Page}
+ * serialization with {@code envelope=lean} or by accepting {@link #LEAN_PAGE_VALUE}.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class PageEnvelopeAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String LEAN_PAGE_VALUE = "application/vnd.library.page-lean+json";
+    public static final MediaType LEAN_PAGE = MediaType.valueOf(LEAN_PAGE_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    private static FieldSelection fieldsOf(List<String> values) {
+        if (values == null)
+            return FieldSelection.ALL;
+        List<String> fields = new ArrayList<>();
+        values.forEach(value -> fields.addAll(Arrays.asList(StringUtils.commaDelimitedListToStringArray(value))));
+        return FieldSelection.of(fields);
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return Page.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof Page) || !(request instanceof ServletServerHttpRequest))
+            return body;
+
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        Page<?> page = (Page<?>) body;
+        String[] fieldValues = servletRequest.getParameterValues("fields");
+        FieldSelection fields = fieldsOf(fieldValues == null ? null : Arrays.asList(fieldValues));
+        if (!fields.isAll() && AbstractJackson2HttpMessageConverter.class.isAssignableFrom(selectedConverterType))
+            page = page.map(item -> trim(objectMapper.valueToTree(item), fields));
+
+        boolean lean = LEAN_PAGE.isCompatibleWith(selectedContentType)
+                || "lean".equals(servletRequest.getParameter("envelope"));
+        if (!lean)
+            return page;
+
+        return PageDTO.of(page, "true".equals(servletRequest.getParameter("total")));
+    }
+
+    private JsonNode trim(JsonNode node, FieldSelection fields) {
+        if (!(node instanceof ObjectNode) || fields.isAll())
+            return node;
+        Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            if (!fields.includes(entry.getKey()))
+                entries.remove();
+            else
+                trim(entry.getValue(), fields.nested(entry.getKey()));
+        }
+        return node;
+    }
+
+}
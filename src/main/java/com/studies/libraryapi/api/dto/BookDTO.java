@@ -1,5 +1,6 @@
 package com.studies.libraryapi.api.dto;
 
+import com.studies.libraryapi.api.validation.Isbn;
 import lombok.*;
 
 import javax.validation.constraints.NotEmpty;
@@ -20,6 +21,9 @@ public class BookDTO {
     private String author;
 
     @NotEmpty
+    @Isbn
     private String isbn;
 
+    private Boolean available;
+
 }
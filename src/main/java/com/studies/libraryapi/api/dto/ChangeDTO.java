@@ -0,0 +1,28 @@
+package com.studies.libraryapi.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+
+    private String type;
+
+    private Long id;
+
+    private boolean deleted;
+
+    private LocalDateTime modifiedAt;
+
+    private BookDTO book;
+
+    private LoanDTO loan;
+
+}
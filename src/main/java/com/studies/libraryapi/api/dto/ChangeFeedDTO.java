@@ -0,0 +1,20 @@
+package com.studies.libraryapi.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+
+    private List<ChangeDTO> changes;
+
+    private String next;
+
+    private boolean more;
+
+}
@@ -0,0 +1,24 @@
+package com.studies.libraryapi.api.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationReportDTO {
+
+    private LocalDate period;
+
+    private String value;
+
+    private long loans;
+
+    private long returns;
+
+    private Double averageLoanDays;
+
+}
@@ -0,0 +1,24 @@
+package com.studies.libraryapi.api.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationStatsDTO {
+
+    private long openLoans;
+
+    private long lateLoans;
+
+    private long checkoutsToday;
+
+    private LocalDateTime asOf;
+
+    private LocalDateTime reconciledAt;
+
+}
@@ -0,0 +1,28 @@
+package com.studies.libraryapi.api.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLoanDTO {
+
+    private Long id;
+
+    private Long bookId;
+
+    private String isbn;
+
+    private String title;
+
+    private LocalDateTime loanDate;
+
+    private Boolean returned;
+
+    private LocalDateTime returnDate;
+
+}
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Data
 @AllArgsConstructor
@@ -12,6 +15,17 @@ import lombok.NoArgsConstructor;
 public class LoanFilterDTO {
 
     private String isbn;
+    private Long customerId;
     private String customer;
+    private String email;
+    private Boolean returned;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate loanDateFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate loanDateTo;
+
+    private Boolean matchAny;
 
 }
@@ -0,0 +1,22 @@
+package com.studies.libraryapi.api.dto;
+
+import lombok.*;
+
+import java.time.YearMonth;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanHistoryDTO {
+
+    private YearMonth month;
+
+    private String key;
+
+    private long loans;
+
+    private double averageLoanDays;
+
+}
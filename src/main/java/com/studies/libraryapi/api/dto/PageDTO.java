@@ -0,0 +1,31 @@
+package com.studies.libraryapi.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageDTO<T> {
+
+    private List<T> items;
+
+    private Integer next;
+
+    private Long total;
+
+    public static <T> PageDTO<T> of(Page<T> page, boolean withTotal) {
+        return PageDTO.<T>builder()
+                .items(page.getContent())
+                .next(page.hasNext() ? page.getNumber() + 1 : null)
+                .total(withTotal ? page.getTotalElements() : null)
+                .build();
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.studies.libraryapi.api.dto;
+
+import lombok.*;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingBookDTO {
+
+    private Long bookId;
+
+    private long loans;
+
+}
@@ -0,0 +1,94 @@
+package com.studies.libraryapi.api.protobuf;
+
+import com.google.protobuf.CodedOutputStream;
+import com.studies.libraryapi.api.dto.BookDTO;
+import com.studies.libraryapi.api.dto.LoanDTO;
+import com.studies.libraryapi.api.dto.PageDTO;
+import org.springframework.data.domain.Page;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Encodes book and loan DTOs, and pages of them, as the messages in {@code library.proto}.
+ */
+public final class ProtobufEncoding {
+
+    private ProtobufEncoding() {
+    }
+
+    public static boolean canEncode(Class<?> type) {
+        return Page.class.isAssignableFrom(type) || PageDTO.class.isAssignableFrom(type)
+                || BookDTO.class.isAssignableFrom(type) || LoanDTO.class.isAssignableFrom(type);
+    }
+
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            write(value, output);
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void write(Object value, CodedOutputStream output) throws IOException {
+        if (value instanceof Page) {
+            Page<?> page = (Page<?>) value;
+            writePage(page.getContent(), page.hasNext() ? page.getNumber() + 1 : null, page.getTotalElements(), output);
+        } else if (value instanceof PageDTO) {
+            PageDTO<?> page = (PageDTO<?>) value;
+            writePage(page.getItems(), page.getNext(), page.getTotal(), output);
+        } else if (value instanceof BookDTO) {
+            writeBook((BookDTO) value, output);
+        } else if (value instanceof LoanDTO) {
+            writeLoan((LoanDTO) value, output);
+        } else {
+            throw new IllegalArgumentException("No protobuf message for " + value.getClass().getName());
+        }
+    }
+
+    private static void writePage(List<?> items, Integer next, Long total, CodedOutputStream output) throws IOException {
+        if (items != null) {
+            for (Object item : items)
+                output.writeByteArray(1, encode(item));
+        }
+        if (next != null)
+            output.writeInt32(2, next);
+        if (total != null)
+            output.writeInt64(3, total);
+    }
+
+    private static void writeBook(BookDTO book, CodedOutputStream output) throws IOException {
+        writeInt64(1, book.getId(), output);
+        writeString(2, book.getTitle(), output);
+        writeString(3, book.getAuthor(), output);
+        writeString(4, book.getIsbn(), output);
+        if (book.getAvailable() != null)
+            output.writeBool(5, book.getAvailable());
+    }
+
+    private static void writeLoan(LoanDTO loan, CodedOutputStream output) throws IOException {
+        writeInt64(1, loan.getId(), output);
+        writeString(2, loan.getIsbn(), output);
+        writeString(3, loan.getCustomer(), output);
+        writeString(4, loan.getEmail(), output);
+        if (loan.getBook() != null)
+            output.writeByteArray(5, encode(loan.getBook()));
+    }
+
+    private static void writeInt64(int field, Long value, CodedOutputStream output) throws IOException {
+        if (value != null)
+            output.writeInt64(field, value);
+    }
+
+    private static void writeString(int field, String value, CodedOutputStream output) throws IOException {
+        if (value != null)
+            output.writeString(field, value);
+    }
+
+}
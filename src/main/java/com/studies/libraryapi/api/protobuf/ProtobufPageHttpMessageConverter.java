@@ -0,0 +1,46 @@
+package com.studies.libraryapi.api.protobuf;
+
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes book and loan responses as protobuf for clients accepting {@code application/x-protobuf}.
+ * Requests are still read as JSON.
+ */
+public class ProtobufPageHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public ProtobufPageHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProtobufEncoding.canEncode(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        ProtobufEncoding.write(body, output);
+        output.flush();
+    }
+
+}
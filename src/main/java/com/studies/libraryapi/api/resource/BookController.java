@@ -3,7 +3,9 @@ package com.studies.libraryapi.api.resource;
 import com.studies.libraryapi.api.dto.BookDTO;
 import com.studies.libraryapi.api.dto.LoanDTO;
 import com.studies.libraryapi.model.entity.Book;
-import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
 import com.studies.libraryapi.service.BookService;
 import com.studies.libraryapi.service.LoanService;
 import io.swagger.annotations.Api;
@@ -42,19 +44,20 @@ public class BookController {
     public BookDTO get( @PathVariable Long id ) {
         log.info("obtaining details for book id: ", id);
         return service
-                .getById(id)
+                .getViewById(id)
                 .map(book -> modelMapper.map(book, BookDTO.class))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @ApiOperation("Find books by params")
     @GetMapping
-    public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
+    public Page<BookDTO> find(BookDTO dto, Pageable pageRequest,
+                              @RequestParam(required = false) List<String> fields) {
         Book filter = modelMapper.map(dto, Book.class);
-        Page<Book> result = service.find(filter, pageRequest);
+        Page<BookView> result = service.find(filter, pageRequest, FieldSelection.of(fields));
         List<BookDTO> list = result.getContent()
                 .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(view -> modelMapper.map(view, BookDTO.class))
                 .collect(Collectors.toList());
 
         return new PageImpl<>( list, pageRequest, result.getTotalElements() );
@@ -65,11 +68,11 @@ public class BookController {
     public Page<LoanDTO> loansByBook( @PathVariable Long id, Pageable pageable ) {
         Book book = service.getById(id)
                 .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
+        Page<LoanView> result = loanService.getLoansByBook(book, pageable);
         List<LoanDTO> list = result.getContent()
                 .stream()
                 .map(loan -> {
-                    Book loanBook = loan.getBook();
+                    BookView loanBook = loan.getBook();
                     BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
                     LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
                     loanDTO.setBook(bookDTO);
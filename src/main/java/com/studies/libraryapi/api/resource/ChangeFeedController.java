@@ -0,0 +1,60 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.api.dto.ChangeFeedDTO;
+import com.studies.libraryapi.service.ChangeFeedService;
+import com.studies.libraryapi.service.changes.ChangeCursor;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("api/changes")
+@Api("Change feed API")
+public class ChangeFeedController {
+
+    private static final int MAX_SIZE = 1000;
+
+    private final ChangeFeedService service;
+
+    private final ChangeFeedMapper mapper;
+
+    private final ChangeFeedStream stream;
+
+    @ApiOperation("Find books and loans created, updated or deleted after a cursor or time")
+    @GetMapping
+    public ChangeFeedDTO find(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "100") int size) {
+        if (size < 1 || size > MAX_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_SIZE);
+        return mapper.toDTO(service.findChanges(cursorOf(updatedSince, cursor), size));
+    }
+
+    @ApiOperation("Stream changes as Server-Sent Events")
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+                             @RequestParam(required = false) String cursor,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return stream.subscribe(cursorOf(updatedSince, lastEventId != null ? lastEventId : cursor));
+    }
+
+    private ChangeCursor cursorOf(LocalDateTime updatedSince, String cursor) {
+        if (cursor == null)
+            return ChangeCursor.since(updatedSince);
+        try {
+            return ChangeCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid change cursor");
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.api.dto.BookDTO;
+import com.studies.libraryapi.api.dto.ChangeDTO;
+import com.studies.libraryapi.api.dto.ChangeFeedDTO;
+import com.studies.libraryapi.api.dto.LoanDTO;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.service.changes.Change;
+import com.studies.libraryapi.service.changes.ChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class ChangeFeedMapper {
+
+    private final ModelMapper modelMapper;
+
+    public ChangeFeedDTO toDTO(ChangeFeed feed) {
+        return ChangeFeedDTO.builder()
+                .changes(feed.getChanges()
+                        .stream()
+                        .map(this::toDTO)
+                        .collect(Collectors.toList()))
+                .next(feed.getNext().encode())
+                .more(feed.isMore())
+                .build();
+    }
+
+    private ChangeDTO toDTO(Change change) {
+        return ChangeDTO.builder()
+                .type(change.getType().name().toLowerCase(Locale.ROOT))
+                .id(change.getRecordId())
+                .deleted(change.isDeleted())
+                .modifiedAt(change.getPosition().getModifiedAt())
+                .book(change.getBook() == null ? null : modelMapper.map(change.getBook(), BookDTO.class))
+                .loan(change.getLoan() == null ? null : toDTO(change.getLoan()))
+                .build();
+    }
+
+    private LoanDTO toDTO(Loan loan) {
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .isbn(loan.getBook().getIsbn())
+                .customer(loan.getCustomer())
+                .email(loan.getCustomerEmail())
+                .book(modelMapper.map(loan.getBook(), BookDTO.class))
+                .build();
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.service.ChangeFeedService;
+import com.studies.libraryapi.service.changes.ChangeCursor;
+import com.studies.libraryapi.service.changes.ChangeFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes the change feed to Server-Sent Events subscribers. Each subscriber keeps its own
+ * cursor, sent as the event id, so a reconnect with Last-Event-ID resumes where it stopped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeFeedStream {
+
+    private static final long TIMEOUT = Duration.ofMinutes(30).toMillis();
+    private static final int BATCH_SIZE = 500;
+
+    private final ChangeFeedService service;
+    private final ChangeFeedMapper mapper;
+    private final Map<SseEmitter, ChangeCursor> subscribers = new ConcurrentHashMap<>();
+
+    public SseEmitter subscribe(ChangeCursor cursor) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(emitter));
+        subscribers.put(emitter, cursor);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${application.changes.stream-interval}")
+    public void push() {
+        subscribers.forEach(this::push);
+    }
+
+    private void push(SseEmitter emitter, ChangeCursor cursor) {
+        try {
+            ChangeFeed feed;
+            do {
+                feed = service.findChanges(cursor, BATCH_SIZE);
+                if (!feed.getChanges().isEmpty()) {
+                    emitter.send(SseEmitter.event()
+                            .id(feed.getNext().encode())
+                            .name("changes")
+                            .data(mapper.toDTO(feed)));
+                }
+                cursor = feed.getNext();
+            } while (feed.isMore());
+            subscribers.replace(emitter, cursor);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("dropping change feed subscriber: {}", e.getMessage());
+            subscribers.remove(emitter);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.api.dto.CustomerLoanDTO;
+import com.studies.libraryapi.api.dto.CustomerLoansDTO;
+import com.studies.libraryapi.service.CustomerService;
+import com.studies.libraryapi.service.customers.CustomerLoanCursor;
+import com.studies.libraryapi.service.customers.CustomerLoanPage;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("api/customers")
+@Api("Customer API")
+public class CustomerController {
+
+    private static final int MAX_SIZE = 100;
+
+    private final CustomerService service;
+
+    private final ModelMapper modelMapper;
+
+    @ApiOperation("Obtain the loans of a customer, open loans first, then newest first")
+    @GetMapping("{customer}/loans")
+    public CustomerLoansDTO loans(@PathVariable Long customer,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_SIZE);
+        CustomerLoanCursor position = cursorOf(cursor);
+        service.getById(customer)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        CustomerLoanPage page = service.getLoans(customer, position, size);
+        return CustomerLoansDTO.builder()
+                .loans(page.getLoans()
+                        .stream()
+                        .map(loan -> modelMapper.map(loan, CustomerLoanDTO.class))
+                        .collect(Collectors.toList()))
+                .next(page.hasMore() ? page.getNext().encode() : null)
+                .more(page.hasMore())
+                .build();
+    }
+
+    private CustomerLoanCursor cursorOf(String cursor) {
+        if (cursor == null)
+            return CustomerLoanCursor.FIRST;
+        try {
+            return CustomerLoanCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid loan cursor");
+        }
+    }
+
+}
@@ -5,20 +5,28 @@ import com.studies.libraryapi.api.dto.LoanDTO;
 import com.studies.libraryapi.api.dto.LoanFilterDTO;
 import com.studies.libraryapi.api.dto.ReturnedLoanDTO;
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Customer;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
 import com.studies.libraryapi.service.BookService;
+import com.studies.libraryapi.service.CustomerService;
 import com.studies.libraryapi.service.LoanService;
+import com.studies.libraryapi.service.checkout.CheckoutBatcher;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -26,22 +34,26 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class LoanController {
 
+    private static final Map<String, String> VIEW_FIELDS = Map.of("email", "customerEmail", "isbn", "book.isbn");
+
     private final LoanService service;
     private final BookService bookService;
+    private final CustomerService customerService;
+    private final CheckoutBatcher checkoutBatcher;
     private final ModelMapper modelMapper;
 
     @GetMapping
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageAble) {
-        Page<Loan> result = service.find(dto, pageAble);
+    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageAble,
+                              @RequestParam(required = false) List<String> fields) {
+        Page<LoanView> result = service.find(dto, pageAble, FieldSelection.of(fields).renamed(VIEW_FIELDS));
         List<LoanDTO> loans = result
                 .getContent()
                 .stream()
-                .map(entity -> {
+                .map(view -> {
 
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
+                    BookView book = view.getBook();
+                    LoanDTO loanDTO = modelMapper.map(view, LoanDTO.class);
+                    loanDTO.setBook(book == null ? null : modelMapper.map(book, BookDTO.class));
                     return loanDTO;
 
                 }).collect(Collectors.toList());
@@ -59,7 +71,12 @@ public class LoanController {
                 .customer(dto.getCustomer())
                 .loanDate(LocalDateTime.now())
                 .build();
-        entity = service.save(entity);
+        if (StringUtils.hasText(dto.getEmail())) {
+            Customer customer = customerService.register(dto.getCustomer(), dto.getEmail());
+            entity.setCustomerId(customer.getId());
+            entity.setCustomerEmail(customer.getEmail());
+        }
+        entity = checkoutBatcher.checkout(entity);
         return entity.getId();
     }
 
@@ -0,0 +1,97 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.api.dto.CirculationReportDTO;
+import com.studies.libraryapi.api.dto.LoanHistoryDTO;
+import com.studies.libraryapi.model.entity.RollupDimension;
+import com.studies.libraryapi.model.projection.CirculationReportRow;
+import com.studies.libraryapi.service.ReportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("api/reports")
+@Api("Reports API")
+public class ReportController {
+
+    private static final int MAX_SIZE = 1000;
+    private static final double SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final ReportService service;
+
+    @ApiOperation("Obtain loans, returns and average loan duration per day or month, in total, per author or per customer")
+    @GetMapping("circulation")
+    public List<CirculationReportDTO> circulation(@RequestParam(defaultValue = "total") String dimension,
+                                                  @RequestParam(defaultValue = "month") String granularity,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "100") int size) {
+        if (size < 1 || size > MAX_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_SIZE);
+        return service.findCirculation(valueOf(RollupDimension.class, dimension),
+                        valueOf(ReportService.Granularity.class, granularity), from, to, PageRequest.of(page, size))
+                .stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation("Obtain closed loans per month by author, book or customer from the loan history")
+    @GetMapping("history")
+    public List<LoanHistoryDTO> history(@RequestParam(defaultValue = "author") String groupBy,
+                                        @RequestParam String from,
+                                        @RequestParam String to) {
+        try {
+            return service.findLoanHistory(valueOf(ReportService.HistoryGrouping.class, groupBy),
+                            YearMonth.parse(from), YearMonth.parse(to))
+                    .stream()
+                    .map(count -> LoanHistoryDTO.builder()
+                            .month(count.getMonth())
+                            .key(count.getKey())
+                            .loans(count.getLoans())
+                            .averageLoanDays(count.getLoanSeconds() / SECONDS_PER_DAY / count.getLoans())
+                            .build())
+                    .collect(Collectors.toList());
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Months must be formatted as yyyy-MM");
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private CirculationReportDTO toDTO(CirculationReportRow row) {
+        return CirculationReportDTO.builder()
+                .period(row.getPeriod())
+                .value(row.getValue())
+                .loans(row.getLoans())
+                .returns(row.getReturns())
+                .averageLoanDays(row.getTimedReturns() == 0 ? null
+                        : row.getLoanSeconds() / SECONDS_PER_DAY / row.getTimedReturns())
+                .build();
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + type.getSimpleName() + ": " + value);
+        }
+    }
+
+}
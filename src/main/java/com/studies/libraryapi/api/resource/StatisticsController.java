@@ -0,0 +1,62 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.api.dto.CirculationStatsDTO;
+import com.studies.libraryapi.api.dto.TrendingBookDTO;
+import com.studies.libraryapi.service.stats.BookPopularity;
+import com.studies.libraryapi.service.stats.CirculationStatistics;
+import com.studies.libraryapi.service.stats.TrendingWindow;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("api/stats")
+@Api("Statistics API")
+public class StatisticsController {
+
+    private final CirculationStatistics circulationStatistics;
+
+    private final BookPopularity bookPopularity;
+
+    private final ModelMapper modelMapper;
+
+    @ApiOperation("Obtain live circulation counters")
+    @GetMapping("circulation")
+    public CirculationStatsDTO circulation() {
+        return modelMapper.map(circulationStatistics.snapshot(), CirculationStatsDTO.class);
+    }
+
+    @ApiOperation("Obtain the most borrowed books of the last day or week")
+    @GetMapping("trending")
+    public List<TrendingBookDTO> trending(@RequestParam(defaultValue = "day") String window,
+                                         @RequestParam(defaultValue = "10") int size) {
+        if (size < 1 || size > bookPopularity.getCapacity())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Size must be between 1 and " + bookPopularity.getCapacity());
+        return bookPopularity.trending(windowOf(window), size)
+                .stream()
+                .map(count -> modelMapper.map(count, TrendingBookDTO.class))
+                .collect(Collectors.toList());
+    }
+
+    private TrendingWindow windowOf(String window) {
+        try {
+            return TrendingWindow.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Window must be day or week");
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.studies.libraryapi.api.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A valid ISBN-10 or ISBN-13, hyphens and spaces allowed. Null is valid.
+ */
+@Documented
+@Constraint(validatedBy = IsbnValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Isbn {
+
+    String message() default "must be a valid ISBN-10 or ISBN-13";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+}
@@ -0,0 +1,15 @@
+package com.studies.libraryapi.api.validation;
+
+import com.studies.libraryapi.model.entity.IsbnCodec;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class IsbnValidator implements ConstraintValidator<Isbn, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || IsbnCodec.isValid(value);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.studies.libraryapi.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+@Endpoint(id = "cacheregions")
+@RequiredArgsConstructor
+public class CacheRegionsEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Map<String, Object>> regions = new TreeMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null)
+                regions.put(region, describe(regionStatistics));
+        }
+        return regions;
+    }
+
+    private Map<String, Object> describe(CacheRegionStatistics statistics) {
+        long hits = statistics.getHitCount();
+        long requests = hits + statistics.getMissCount();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("hits", hits);
+        description.put("misses", statistics.getMissCount());
+        description.put("puts", statistics.getPutCount());
+        description.put("hitRatio", requests == 0 ? 0d : (double) hits / requests);
+        description.put("elementsInMemory", statistics.getElementCountInMemory());
+        return description;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.studies.libraryapi.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(prefix = "application.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                                        DataSourceRoutingProperties properties) {
+        DataSource primary = dataSourceProperties.initializeDataSourceBuilder().build();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<DataSourceRoutingProperties.Replica> replicaProperties = properties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            DataSourceRoutingProperties.Replica replica = replicaProperties.get(i);
+            replicas.put("replica-" + i, DataSourceBuilder.create()
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build());
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, properties.getStickiness());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource routingDataSource,
+                                               DataSourceRoutingProperties properties) {
+        return new ReplicaLagMonitor(routingDataSource, properties);
+    }
+
+    /*
+     * Replicas fed by database replication get the schema from the primary. Standalone
+     * replicas are migrated after the primary with the same configuration.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.datasource.routing", name = "migrate-replicas", havingValue = "true")
+    public FlywayMigrationStrategy replicaMigrationStrategy(ReadWriteRoutingDataSource routingDataSource) {
+        return flyway -> {
+            flyway.migrate();
+            routingDataSource.getReplicas().values().forEach(replica -> Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(replica)
+                    .load()
+                    .migrate());
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer routingStickinessConfigurer(ReadWriteRoutingDataSource routingDataSource) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new RoutingStickinessInterceptor(routingDataSource));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.studies.libraryapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "application.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    private boolean enabled;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    private String lagQuery;
+
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    private Duration stickiness = Duration.ofSeconds(5);
+
+    private boolean migrateReplicas;
+
+    @Data
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.studies.libraryapi.config;
+
+import com.studies.libraryapi.model.entity.Book;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Configuration
+public class HibernateCacheConfig {
+
+    @Value("${application.cache.book.max-entries}")
+    private long bookMaxEntries;
+
+    @Value("${application.cache.book-isbn.max-entries}")
+    private long bookIsbnMaxEntries;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        Map<String, CacheConfiguration<?, ?>> regions = new HashMap<>();
+        regions.put(Book.CACHE_REGION, region(bookMaxEntries));
+        regions.put(Book.ISBN_CACHE_REGION, region(bookIsbnMaxEntries));
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        // one manager per application context, so test contexts never share regions
+        URI uri = URI.create("urn:library-api:hibernate:" + UUID.randomUUID());
+        return provider.getCacheManager(uri, new DefaultConfiguration(regions, getClass().getClassLoader()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private CacheConfiguration<Object, Object> region(long maxEntries) {
+        return CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .build();
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.studies.libraryapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * A thread that asked to follow its writes keeps reading from the primary for the stickiness
+ * window once a write commits; across requests the window is carried by the client, see
+ * {@link RoutingStickinessInterceptor}. Other threads, such as pooled workers, are never made
+ * sticky. Must be wrapped in a LazyConnectionDataSourceProxy so the connection is only
+ * fetched after the transaction read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Long> primaryUntil = new ThreadLocal<>();
+
+    private static final ThreadLocal<LongConsumer> writeListener = new ThreadLocal<>();
+
+    private final List<String> replicaKeys;
+    private final Map<String, DataSource> replicas;
+    private final Set<String> unhealthyReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final long stickinessMillis;
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration stickiness) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicas = Collections.unmodifiableMap(replicas);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.stickinessMillis = stickiness.toMillis();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (writeListener.get() != null && TransactionSynchronizationManager.isSynchronizationActive())
+                stickAfterCommit(writeListener.get());
+            return PRIMARY;
+        }
+        if (isStickyToPrimary())
+            return PRIMARY;
+        return nextHealthyReplica();
+    }
+
+    /**
+     * Reads from the primary for the stickiness window from now on and returns its end in
+     * epoch millis.
+     */
+    public long stickToPrimary() {
+        long until = System.currentTimeMillis() + stickinessMillis;
+        stickToPrimaryUntil(until);
+        return until;
+    }
+
+    /**
+     * Reads from the primary until the given epoch millis, capped to the stickiness window
+     * so a stale or forged value cannot pin the thread to the primary.
+     */
+    public void stickToPrimaryUntil(long until) {
+        long capped = Math.min(until, System.currentTimeMillis() + stickinessMillis);
+        Long current = primaryUntil.get();
+        if (current == null || current < capped)
+            primaryUntil.set(capped);
+    }
+
+    /**
+     * Makes each write transaction this thread commits, until {@link #clearStickiness()}, keep
+     * it on the primary for the stickiness window and report the end of the window to the
+     * listener. Nothing happens for a write that rolls back.
+     */
+    public void followWrites(LongConsumer listener) {
+        writeListener.set(listener);
+    }
+
+    public Duration getStickiness() {
+        return Duration.ofMillis(stickinessMillis);
+    }
+
+    public void clearStickiness() {
+        primaryUntil.remove();
+        writeListener.remove();
+    }
+
+    public void updateReplicaHealth(String replica, boolean healthy) {
+        if (healthy)
+            unhealthyReplicas.remove(replica);
+        else
+            unhealthyReplicas.add(replica);
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /*
+     * The routing data source is bound as a marker resource so a transaction that fetches
+     * several connections registers its synchronization once.
+     */
+    private void stickAfterCommit(LongConsumer listener) {
+        if (TransactionSynchronizationManager.hasResource(this))
+            return;
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                listener.accept(stickToPrimary());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReadWriteRoutingDataSource.this);
+            }
+        });
+    }
+
+    private boolean isStickyToPrimary() {
+        Long until = primaryUntil.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    private String nextHealthyReplica() {
+        int size = replicaKeys.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            String replica = replicaKeys.get((start + i) % size);
+            if (!unhealthyReplicas.contains(replica))
+                return replica;
+        }
+        return PRIMARY;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.studies.libraryapi.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaLagMonitor {
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final DataSourceRoutingProperties properties;
+
+    @Scheduled(fixedDelayString = "${application.datasource.routing.lag-check-interval:5000}")
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicas().entrySet())
+            routingDataSource.updateReplicaHealth(replica.getKey(), isHealthy(replica.getKey(), replica.getValue()));
+    }
+
+    private boolean isHealthy(String name, DataSource dataSource) {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            if (!StringUtils.hasText(properties.getLagQuery())) {
+                jdbcTemplate.queryForObject("select 1", Integer.class);
+                return true;
+            }
+            Number lagSeconds = jdbcTemplate.queryForObject(properties.getLagQuery(), Number.class);
+            boolean healthy = lagSeconds != null && lagSeconds.longValue() <= properties.getMaxLag().getSeconds();
+            if (!healthy)
+                log.warn("replica {} is lagging {}s behind, routing its reads to the primary", name, lagSeconds);
+            return healthy;
+        } catch (RuntimeException ex) {
+            log.warn("replica {} is unreachable, routing its reads to the primary", name, ex);
+            return false;
+        }
+    }
+
+}
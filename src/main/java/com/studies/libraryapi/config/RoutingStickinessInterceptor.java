@@ -0,0 +1,61 @@
+package com.studies.libraryapi.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Carries read-your-writes across requests: once a write of the request commits, the client
+ * gets a cookie with the end of the stickiness window, and later requests bearing it read
+ * from the primary until then, whichever thread serves them. Writes committed on another
+ * thread, such as a group commit, hand out no cookie.
+ */
+@RequiredArgsConstructor
+public class RoutingStickinessInterceptor implements HandlerInterceptor {
+
+    public static final String COOKIE_NAME = "primary-until";
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        routingDataSource.followWrites(primaryUntil -> {
+            // the transaction commits inside the handler, before the response is written
+            if (!response.isCommitted())
+                response.addCookie(cookieOf(primaryUntil));
+        });
+        // reads made to serve a write must see the primary, not a possibly lagging replica
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            routingDataSource.stickToPrimary();
+            return true;
+        }
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie != null) {
+            try {
+                routingDataSource.stickToPrimaryUntil(Long.parseLong(cookie.getValue()));
+            } catch (NumberFormatException e) {
+                // a malformed cookie only loses the stickiness
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        routingDataSource.clearStickiness();
+    }
+
+    private Cookie cookieOf(long primaryUntil) {
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(primaryUntil));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, routingDataSource.getStickiness().toSeconds() + 1));
+        return cookie;
+    }
+
+}
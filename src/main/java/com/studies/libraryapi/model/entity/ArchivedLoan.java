@@ -0,0 +1,54 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A returned loan moved out of the live loan table. It keeps the id and the attribute names
+ * of {@link Loan}, so loan specifications apply to it unchanged.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_archive")
+public class ArchivedLoan {
+
+    @Id
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @JoinColumn(name = "book_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Book book;
+
+    @Column
+    private LocalDateTime loanDate;
+
+    @Column(nullable = false)
+    private Boolean returned;
+
+    @Column(name = "return_date")
+    private LocalDateTime returnDate;
+
+    @Column(name = "last_modified", nullable = false)
+    private LocalDateTime lastModified;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+}
@@ -4,8 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -14,8 +19,14 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@NaturalIdCache(region = Book.ISBN_CACHE_REGION)
 public class Book {
 
+    public static final String CACHE_REGION = "book";
+    public static final String ISBN_CACHE_REGION = "book-isbn";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,7 +40,36 @@ public class Book {
     @Column
     private String isbn;
 
+    // canonical ISBN-13 of isbn, derived on every write; null for values that are not ISBNs
+    @NaturalId
+    @Column(name = "isbn_number")
+    private Long isbnNumber;
+
+    // availability is only written through the conditional updates in BookRespository
+    @Column(nullable = false, updatable = false)
+    private Boolean available;
+
+    @Column(name = "active_loan_id", updatable = false)
+    private Long activeLoanId;
+
+    @Column(name = "last_modified", nullable = false)
+    private LocalDateTime lastModified;
+
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
 
+    @PrePersist
+    void prePersist() {
+        if (available == null)
+            available = true;
+        isbnNumber = IsbnCodec.numberOf(isbn);
+        lastModified = ChangeClock.now();
+    }
+
+    @PreUpdate
+    void preUpdate() {
+        isbnNumber = IsbnCodec.numberOf(isbn);
+        lastModified = ChangeClock.now();
+    }
+
 }
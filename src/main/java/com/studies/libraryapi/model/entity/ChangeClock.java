@@ -0,0 +1,19 @@
+package com.studies.libraryapi.model.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Modification timestamps, truncated to the precision the database keeps so change feed
+ * cursors compare equal to the stored values.
+ */
+public final class ChangeClock {
+
+    private ChangeClock() {
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+}
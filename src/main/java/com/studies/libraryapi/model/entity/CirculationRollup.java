@@ -0,0 +1,57 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Circulation counters of one day for one value of a dimension, such as an author or a
+ * customer. The {@link RollupDimension#TOTAL} dimension has a single empty value.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "circulation_rollup")
+public class CirculationRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RollupDimension dimension;
+
+    @Column(name = "dimension_value", nullable = false)
+    private String dimensionValue;
+
+    @Column(nullable = false)
+    private LocalDate period;
+
+    @Column(nullable = false)
+    private long loans;
+
+    @Column(nullable = false)
+    private long returns;
+
+    @Column(name = "timed_returns", nullable = false)
+    private long timedReturns;
+
+    @Column(name = "loan_seconds", nullable = false)
+    private long loanSeconds;
+
+    public static CirculationRollup empty(RollupDimension dimension, String dimensionValue, LocalDate period) {
+        return CirculationRollup.builder()
+                .dimension(dimension)
+                .dimensionValue(dimensionValue)
+                .period(period)
+                .build();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table
+public class Customer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 100)
+    private String name;
+
+    // trimmed and lower case, unique
+    @Column(nullable = false)
+    private String email;
+
+    // only written through the conditional updates in CustomerRepository
+    @Column(name = "open_loans", nullable = false, updatable = false)
+    private Integer openLoans;
+
+    @PrePersist
+    void prePersist() {
+        if (openLoans == null)
+            openLoans = 0;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.studies.libraryapi.model.entity;
+
+/**
+ * Packs an ISBN into a long. Hyphens and spaces are ignored and an ISBN-10 is converted to
+ * its ISBN-13 form, so both spellings of the same book pack to the same thirteen digit
+ * number. Anything that is not a valid ISBN-10 or ISBN-13 packs to {@link #NONE}.
+ */
+public final class IsbnCodec {
+
+    public static final long NONE = -1;
+
+    private IsbnCodec() {
+    }
+
+    public static boolean isValid(String isbn) {
+        return pack(isbn) != NONE;
+    }
+
+    /**
+     * The packed isbn, or null when it does not pack, as stored in {@code book.isbn_number}.
+     */
+    public static Long numberOf(String isbn) {
+        long number = pack(isbn);
+        return number == NONE ? null : number;
+    }
+
+    public static long pack(String isbn) {
+        if (isbn == null)
+            return NONE;
+        char[] digits = new char[13];
+        int length = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ')
+                continue;
+            if (length == digits.length)
+                return NONE;
+            digits[length++] = c;
+        }
+        if (length == 10)
+            return packIsbn10(digits);
+        if (length == 13)
+            return packIsbn13(digits);
+        return NONE;
+    }
+
+    private static long packIsbn10(char[] digits) {
+        long body = 0;
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = digitAt(digits, i);
+            if (digit < 0)
+                return NONE;
+            body = body * 10 + digit;
+            sum += (10 - i) * digit;
+        }
+        int check = digits[9] == 'X' || digits[9] == 'x' ? 10 : digitAt(digits, 9);
+        if (check < 0 || (sum + check) % 11 != 0)
+            return NONE;
+        long prefixed = 978_000_000_000L + body;
+        return prefixed * 10 + isbn13CheckDigit(prefixed);
+    }
+
+    private static long packIsbn13(char[] digits) {
+        long value = 0;
+        for (int i = 0; i < 13; i++) {
+            int digit = digitAt(digits, i);
+            if (digit < 0)
+                return NONE;
+            value = value * 10 + digit;
+        }
+        long prefix = value / 10_000_000_000L;
+        if (prefix != 978 && prefix != 979 || isbn13CheckDigit(value / 10) != value % 10)
+            return NONE;
+        return value;
+    }
+
+    private static int isbn13CheckDigit(long twelveDigits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++, twelveDigits /= 10)
+            sum += (int) (twelveDigits % 10) * (i % 2 == 0 ? 3 : 1);
+        return (10 - sum % 10) % 10;
+    }
+
+    private static int digitAt(char[] digits, int index) {
+        char c = digits[index];
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+}
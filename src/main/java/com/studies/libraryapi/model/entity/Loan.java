@@ -26,6 +26,9 @@ public class Loan {
     @Column(name = "customer_email")
     private String customerEmail;
 
+    @Column(name = "customer_id")
+    private Long customerId;
+
     @JoinColumn(name = "book_id")
     @ManyToOne
     private Book book;
@@ -36,4 +39,16 @@ public class Loan {
     @Column
     private Boolean returned;
 
+    @Column(name = "return_date")
+    private LocalDateTime returnDate;
+
+    @Column(name = "last_modified", nullable = false)
+    private LocalDateTime lastModified;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = ChangeClock.now();
+    }
+
 }
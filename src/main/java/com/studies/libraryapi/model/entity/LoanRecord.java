@@ -0,0 +1,49 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A live or archived loan, read through the loan_record view over both loan tables. It keeps
+ * the id and the attribute names of {@link Loan}, so loan specifications apply to it unchanged.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "loan_record")
+public class LoanRecord {
+
+    @Id
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @JoinColumn(name = "book_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Book book;
+
+    @Column
+    private LocalDateTime loanDate;
+
+    @Column
+    private Boolean returned;
+
+    @Column(name = "return_date")
+    private LocalDateTime returnDate;
+
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+
+}
@@ -0,0 +1,8 @@
+package com.studies.libraryapi.model.entity;
+
+public enum RecordType {
+
+    BOOK,
+    LOAN
+
+}
@@ -0,0 +1,27 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Remembers which parts of a loan are already counted in the rollups, so a loan changed
+ * again after it was rolled up is not counted twice.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "rolled_up_loan")
+public class RolledUpLoan {
+
+    @Id
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Column(nullable = false)
+    private boolean returned;
+
+}
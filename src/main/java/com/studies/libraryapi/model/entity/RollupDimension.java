@@ -0,0 +1,9 @@
+package com.studies.libraryapi.model.entity;
+
+public enum RollupDimension {
+
+    TOTAL,
+    AUTHOR,
+    CUSTOMER
+
+}
@@ -0,0 +1,36 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Position in the loan change order up to which a rollup has processed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "rollup_watermark")
+public class RollupWatermark {
+
+    public static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "last_modified", nullable = false)
+    private LocalDateTime lastModified;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    public static RollupWatermark start(String name) {
+        return new RollupWatermark(name, START, Long.MIN_VALUE);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.studies.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted record so the change feed can report the deletion.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "record_type", nullable = false, length = 20)
+    private RecordType recordType;
+
+    @Column(name = "record_id", nullable = false)
+    private Long recordId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public static Tombstone of(RecordType recordType, Long recordId) {
+        return Tombstone.builder()
+                .recordType(recordType)
+                .recordId(recordId)
+                .deletedAt(ChangeClock.now())
+                .build();
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.studies.libraryapi.model.projection;
+
+import lombok.Value;
+
+@Value
+public class BookIsbn {
+
+    Long id;
+    String isbn;
+
+}
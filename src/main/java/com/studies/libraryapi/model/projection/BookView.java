@@ -0,0 +1,51 @@
+package com.studies.libraryapi.model.projection;
+
+import com.studies.libraryapi.model.entity.Book;
+import lombok.Value;
+
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import java.util.Arrays;
+import java.util.List;
+
+@Value
+public class BookView {
+
+    public static final List<String> FIELDS = Arrays.asList("id", "title", "author", "isbn", "available");
+
+    Long id;
+    String title;
+    String author;
+    String isbn;
+    Boolean available;
+
+    public static BookView of(Book book) {
+        return new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getAvailable());
+    }
+
+    /**
+     * Reads a view from a tuple whose elements are aliased {@code prefix + field}; fields
+     * that were not selected stay null.
+     */
+    public static BookView of(Tuple tuple, String prefix) {
+        return new BookView(
+                get(tuple, prefix + "id", Long.class),
+                get(tuple, prefix + "title", String.class),
+                get(tuple, prefix + "author", String.class),
+                get(tuple, prefix + "isbn", String.class),
+                get(tuple, prefix + "available", Boolean.class));
+    }
+
+    public static BookView of(Tuple tuple) {
+        return of(tuple, "");
+    }
+
+    private static <T> T get(Tuple tuple, String alias, Class<T> type) {
+        for (TupleElement<?> element : tuple.getElements()) {
+            if (alias.equals(element.getAlias()))
+                return tuple.get(alias, type);
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.studies.libraryapi.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+@AllArgsConstructor
+public class CirculationReportRow {
+
+    LocalDate period;
+    String value;
+    Long loans;
+    Long returns;
+    Long timedReturns;
+    Long loanSeconds;
+
+    public CirculationReportRow(Integer year, Integer month, String value, Long loans, Long returns,
+                                Long timedReturns, Long loanSeconds) {
+        this(LocalDate.of(year, month, 1), value, loans, returns, timedReturns, loanSeconds);
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.studies.libraryapi.model.projection;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class CustomerLoanView {
+
+    Long id;
+    Long bookId;
+    String isbn;
+    String title;
+    LocalDateTime loanDate;
+    Boolean returned;
+    LocalDateTime returnDate;
+
+    public boolean isOpen() {
+        return !Boolean.TRUE.equals(returned);
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.studies.libraryapi.model.projection;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields a client asked for, as property paths such as {@code title} or {@code book.title}.
+ * {@link #ALL} means no selection was made and every field is wanted.
+ */
+@EqualsAndHashCode
+public final class FieldSelection {
+
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static FieldSelection of(Collection<String> fields) {
+        if (fields == null)
+            return ALL;
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field != null && !field.trim().isEmpty())
+                selected.add(field.trim());
+        }
+        return selected.isEmpty() ? ALL : new FieldSelection(Collections.unmodifiableSet(selected));
+    }
+
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    /**
+     * A field is included when it was asked for, or when one of its nested fields was.
+     */
+    public boolean includes(String field) {
+        if (fields == null || fields.contains(field))
+            return true;
+        String prefix = field + ".";
+        return fields.stream().anyMatch(selected -> selected.startsWith(prefix));
+    }
+
+    /**
+     * The selection inside a nested field: everything when the field itself was asked for,
+     * otherwise the requested paths below it.
+     */
+    public FieldSelection nested(String field) {
+        if (fields == null || fields.contains(field))
+            return ALL;
+        String prefix = field + ".";
+        Set<String> nested = new LinkedHashSet<>();
+        for (String selected : fields) {
+            if (selected.startsWith(prefix))
+                nested.add(selected.substring(prefix.length()));
+        }
+        return new FieldSelection(Collections.unmodifiableSet(nested));
+    }
+
+    public FieldSelection renamed(Map<String, String> names) {
+        if (fields == null)
+            return ALL;
+        Set<String> renamed = new LinkedHashSet<>();
+        for (String field : fields)
+            renamed.add(names.getOrDefault(field, field));
+        return new FieldSelection(Collections.unmodifiableSet(renamed));
+    }
+
+    @Override
+    public String toString() {
+        return fields == null ? "*" : String.join(",", fields);
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.studies.libraryapi.model.projection;
+
+import lombok.Value;
+
+@Value
+public class LoanView {
+
+    Long id;
+    String customer;
+    String customerEmail;
+    BookView book;
+
+}
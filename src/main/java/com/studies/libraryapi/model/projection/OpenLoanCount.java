@@ -0,0 +1,20 @@
+package com.studies.libraryapi.model.projection;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class OpenLoanCount {
+
+    Integer year;
+    Integer month;
+    Integer day;
+    Integer hour;
+    Long count;
+
+    public LocalDateTime getStartOfHour() {
+        return LocalDateTime.of(year, month, day, hour, 0);
+    }
+
+}
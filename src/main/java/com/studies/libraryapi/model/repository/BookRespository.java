@@ -1,14 +1,40 @@
 package com.studies.libraryapi.model.repository;
 
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.projection.BookIsbn;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
-public interface BookRespository extends JpaRepository<Book, Long> {
+public interface BookRespository extends JpaRepository<Book, Long>, BookRespositoryCustom {
 
-    boolean existsByIsbn(String isbn);
+    boolean existsByIdAndAvailableTrue(Long id);
 
-    Optional<Book> findByIsbn(String isbn);
+    boolean existsByIdAndActiveLoanId(Long id, Long activeLoanId);
+
+    @Query(" select b.id from Book b where b.id in :ids and b.available = true ")
+    List<Long> findAvailableIds(@Param("ids") Collection<Long> ids);
+
+    @Query(" select b.id from Book b where ( b.activeLoanId is null and b.available = false ) " +
+            " or ( b.activeLoanId is not null and not exists ( " +
+            " select l.id from Loan l where l.id = b.activeLoanId and l.book = b " +
+            " and ( l.returned is null or l.returned is false ) ) ) ")
+    List<Long> findIdsWithStaleAvailability();
+
+    @Query(" select b from Book b where b.lastModified < :until and ( b.lastModified > :since " +
+            " or ( b.lastModified = :since and b.id > :afterId ) ) order by b.lastModified, b.id ")
+    List<Book> findChangedSince(@Param("since") LocalDateTime since,
+                                @Param("afterId") Long afterId,
+                                @Param("until") LocalDateTime until,
+                                Pageable pageable);
+
+    @Query(" select new com.studies.libraryapi.model.projection.BookIsbn( b.id, b.isbn ) from Book b " +
+            " where b.id > :afterId order by b.id ")
+    List<BookIsbn> findIsbnsAfter(@Param("afterId") Long afterId, Pageable pageable);
 
 }
@@ -0,0 +1,31 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface BookRespositoryCustom {
+
+    @Transactional(readOnly = true)
+    Optional<Book> findByIsbn(String isbn);
+
+    @Transactional(readOnly = true)
+    boolean existsByIsbn(String isbn);
+
+    Page<BookView> findViews(Example<Book> example, Pageable pageable, FieldSelection fields);
+
+    int markAsLoaned(Long bookId, Long loanId);
+
+    int markAsReturned(Long bookId, Long loanId);
+
+    int assignActiveLoan(Long bookId, Long loanId);
+
+    int markAsAvailable(Long bookId);
+
+}
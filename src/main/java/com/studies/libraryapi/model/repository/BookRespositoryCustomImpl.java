@@ -0,0 +1,174 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.ChangeClock;
+import com.studies.libraryapi.model.entity.IsbnCodec;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class BookRespositoryCustomImpl implements BookRespositoryCustom {
+
+    /*
+     * Availability updates are native statements tied to this query space instead of the book
+     * table, so Hibernate does not drop the whole book cache region; only the touched entry is evicted.
+     */
+    private static final String AVAILABILITY_QUERY_SPACE = "book_availability";
+
+    private static final String OPEN_ACTIVE_LOAN = " select a.id from loan a where a.id = book.active_loan_id " +
+            " and a.book_id = book.id and ( a.returned is null or a.returned = false ) ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /*
+     * Valid ISBNs are looked up by their packed number, the natural id, so any spelling is
+     * served from the natural id cache. Other stored values can only be matched as written.
+     */
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        Long number = IsbnCodec.numberOf(isbn);
+        if (number == null)
+            return entityManager.createQuery(" select b from Book b where b.isbn = :isbn ", Book.class)
+                    .setParameter("isbn", isbn)
+                    .getResultStream()
+                    .findFirst();
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Book.class)
+                .loadOptional(number);
+    }
+
+    @Override
+    public boolean existsByIsbn(String isbn) {
+        Long number = IsbnCodec.numberOf(isbn);
+        TypedQuery<Long> query = number == null
+                ? entityManager.createQuery(" select b.id from Book b where b.isbn = :isbn ", Long.class)
+                        .setParameter("isbn", isbn)
+                : entityManager.createQuery(" select b.id from Book b where b.isbnNumber = :number ", Long.class)
+                        .setParameter("number", number);
+        return !query.setMaxResults(1).getResultList().isEmpty();
+    }
+
+    @Override
+    public Page<BookView> findViews(Example<Book> example, Pageable pageable, FieldSelection fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : BookView.FIELDS) {
+            if (field.equals("id") || fields.includes(field))
+                selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<BookView> content = typedQuery.getResultList()
+                .stream()
+                .map(BookView::of)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, count(example));
+    }
+
+    private long count(Example<Book> example) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(cb.count(root));
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+        if (predicate != null)
+            query.where(predicate);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public int markAsLoaned(Long bookId, Long loanId) {
+        return updateAvailability(" update book set active_loan_id = :loanId, available = false, last_modified = :now " +
+                " where id = :bookId and ( active_loan_id is null or active_loan_id = :loanId ) ", bookId, loanId);
+    }
+
+    @Override
+    public int markAsReturned(Long bookId, Long loanId) {
+        return updateAvailability(" update book set active_loan_id = null, available = true, last_modified = :now " +
+                " where id = :bookId and active_loan_id = :loanId ", bookId, loanId);
+    }
+
+    /*
+     * Reconciliation reads the drift and repairs it in separate statements, so each update
+     * checks the drift again and leaves alone a book a checkout or return has fixed since.
+     */
+    @Override
+    public int assignActiveLoan(Long bookId, Long loanId) {
+        return updateAvailability(" update book set active_loan_id = :loanId, available = false, last_modified = :now " +
+                " where id = :bookId and exists ( select l.id from loan l where l.id = :loanId and l.book_id = :bookId " +
+                " and ( l.returned is null or l.returned = false ) ) " +
+                " and ( ( active_loan_id = :loanId and available = true ) or active_loan_id is null " +
+                " or not exists ( " + OPEN_ACTIVE_LOAN + " ) ) ", bookId, loanId);
+    }
+
+    @Override
+    public int markAsAvailable(Long bookId) {
+        return updateAvailability(" update book set active_loan_id = null, available = true, last_modified = :now " +
+                " where id = :bookId and ( ( active_loan_id is null and available = false ) " +
+                " or ( active_loan_id is not null and not exists ( " + OPEN_ACTIVE_LOAN + " ) ) ) ", bookId, null);
+    }
+
+    private int updateAvailability(String sql, Long bookId, Long loanId) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(AVAILABILITY_QUERY_SPACE);
+        query.setParameter("bookId", bookId);
+        query.setParameter("now", ChangeClock.now());
+        if (loanId != null)
+            query.setParameter("loanId", loanId);
+        int updated = query.executeUpdate();
+        if (updated > 0)
+            evictAfterCompletion(bookId);
+        return updated;
+    }
+
+    private void evictAfterCompletion(Long bookId) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Book.class, bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Book.class, bookId);
+                }
+            });
+        }
+    }
+
+}
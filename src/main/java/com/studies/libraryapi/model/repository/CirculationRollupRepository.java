@@ -0,0 +1,40 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.CirculationRollup;
+import com.studies.libraryapi.model.entity.RollupDimension;
+import com.studies.libraryapi.model.projection.CirculationReportRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface CirculationRollupRepository extends JpaRepository<CirculationRollup, Long> {
+
+    Optional<CirculationRollup> findByDimensionAndDimensionValueAndPeriod(RollupDimension dimension,
+                                                                          String dimensionValue,
+                                                                          LocalDate period);
+
+    @Query(" select new com.studies.libraryapi.model.projection.CirculationReportRow( r.period, r.dimensionValue, " +
+            " r.loans, r.returns, r.timedReturns, r.loanSeconds ) from CirculationRollup r " +
+            " where r.dimension = :dimension and r.period between :from and :to " +
+            " order by r.period, r.dimensionValue ")
+    List<CirculationReportRow> findDaily(@Param("dimension") RollupDimension dimension,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to,
+                                         Pageable pageable);
+
+    @Query(" select new com.studies.libraryapi.model.projection.CirculationReportRow( year(r.period), month(r.period), " +
+            " r.dimensionValue, sum(r.loans), sum(r.returns), sum(r.timedReturns), sum(r.loanSeconds) ) " +
+            " from CirculationRollup r where r.dimension = :dimension and r.period between :from and :to " +
+            " group by year(r.period), month(r.period), r.dimensionValue " +
+            " order by year(r.period), month(r.period), r.dimensionValue ")
+    List<CirculationReportRow> findMonthly(@Param("dimension") RollupDimension dimension,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to,
+                                           Pageable pageable);
+
+}
@@ -0,0 +1,48 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Customer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    Optional<Customer> findByEmail(String email);
+
+    /**
+     * Counts one more open loan unless the customer already has {@code limit}. The row stays
+     * locked until the transaction ends, so concurrent checkouts of one customer queue here.
+     */
+    @Modifying
+    @Query(" update Customer c set c.openLoans = c.openLoans + 1 where c.id = :id and c.openLoans < :limit ")
+    int reserveLoan(@Param("id") Long id, @Param("limit") int limit);
+
+    @Modifying
+    @Query(" update Customer c set c.openLoans = c.openLoans - 1 where c.id = :id and c.openLoans > 0 ")
+    int releaseLoan(@Param("id") Long id);
+
+    @Query(" select c.id from Customer c where c.openLoans <> ( select count(l) from Loan l " +
+            " where l.customerId = c.id and ( l.returned is null or l.returned is false ) ) ")
+    List<Long> findIdsWithStaleOpenLoans();
+
+    /**
+     * Locks the customer row until the transaction ends, as a checkout or return of the
+     * customer does, so none of them commits between counting its loans and storing the count.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(" select c from Customer c where c.id = :id ")
+    Optional<Customer> lockById(@Param("id") Long id);
+
+    @Modifying
+    @Query(" update Customer c set c.openLoans = ( select count(l) from Loan l where l.customerId = c.id " +
+            " and ( l.returned is null or l.returned is false ) ) where c.id = :id and c.openLoans <> ( " +
+            " select count(l) from Loan l where l.customerId = c.id and ( l.returned is null or l.returned is false ) ) ")
+    int reconcileOpenLoans(@Param("id") Long id);
+
+}
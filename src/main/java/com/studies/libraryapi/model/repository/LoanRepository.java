@@ -2,28 +2,51 @@ package com.studies.libraryapi.model.repository;
 
 import com.studies.libraryapi.model.entity.Book;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.OpenLoanCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan>, LoanRepositoryCustom {
 
     @Query(value = "select case when ( count(l.id) > 0 ) then true else false end" +
             " from Loan l where l.book = :book and ( l.returned is null or l.returned is false )")
     boolean existsByBookAndNotReturned( @Param("book") Book book );
 
-    @Query(value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer ")
-    Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn,
-                                        @Param("customer") String customer,
-                                        Pageable pageable);
+    default Page<Loan> findByBookIsbnOrCustomer(String isbn, Long customerId, Pageable pageable) {
+        return findAll(LoanSpecifications.isbn(isbn).or(LoanSpecifications.customerId(customerId)), pageable);
+    }
 
     Page<Loan> findByBook( Book book, Pageable pageable );
 
     @Query(" select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false ) ")
     List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDateTime threeDaysAgo);
+
+    @Query(" select distinct c.email from Loan l, Customer c where c.id = l.customerId " +
+            " and l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false ) ")
+    List<String> findLateCustomerEmails(@Param("threeDaysAgo") LocalDateTime threeDaysAgo);
+
+    @Query(" select l from Loan l join l.book b where ( l.returned is null or l.returned is false ) " +
+            " and ( b.activeLoanId is null or b.activeLoanId <> l.id or b.available = true ) ")
+    List<Loan> findNotReturnedUntrackedByBook();
+
+    @Query(" select new com.studies.libraryapi.model.projection.OpenLoanCount( year(l.loanDate), month(l.loanDate), " +
+            " day(l.loanDate), hour(l.loanDate), count(l) ) from Loan l where ( l.returned is null or l.returned is false ) " +
+            " group by year(l.loanDate), month(l.loanDate), day(l.loanDate), hour(l.loanDate) ")
+    List<OpenLoanCount> countOpenLoansByHour();
+
+    long countByLoanDateGreaterThanEqual(LocalDateTime loanDate);
+
+    @Query(" select l from Loan l join fetch l.book where l.lastModified < :until and ( l.lastModified > :since " +
+            " or ( l.lastModified = :since and l.id > :afterId ) ) order by l.lastModified, l.id ")
+    List<Loan> findChangedSince(@Param("since") LocalDateTime since,
+                                @Param("afterId") Long afterId,
+                                @Param("until") LocalDateTime until,
+                                Pageable pageable);
 }
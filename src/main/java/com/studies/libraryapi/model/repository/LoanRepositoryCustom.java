@@ -0,0 +1,25 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LoanRepositoryCustom {
+
+    Page<LoanView> findViews(Specification<Loan> specification, Pageable pageable, FieldSelection fields);
+
+    Page<LoanView> findViewsWithArchived(Specification<Loan> specification, Pageable pageable, FieldSelection fields);
+
+    List<CustomerLoanView> findCustomerLoans(Long customerId, boolean returned, LocalDateTime beforeLoanDate,
+                                             Long beforeId, int limit);
+
+    int archiveReturnedBefore(LocalDateTime cutoff, int limit);
+
+}
@@ -0,0 +1,228 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.ArchivedLoan;
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.ChangeClock;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.LoanRecord;
+import com.studies.libraryapi.model.entity.RolledUpLoan;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    private static final String BOOK_PREFIX = "book_";
+
+    private static final Comparator<CustomerLoanView> NEWEST_FIRST = Comparator
+            .comparing(CustomerLoanView::getLoanDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(CustomerLoanView::getId, Comparator.reverseOrder());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<LoanView> findViews(Specification<Loan> specification, Pageable pageable, FieldSelection fields) {
+        List<LoanView> content = pageable.isPaged()
+                ? findViews(Loan.class, specification, pageable.getOffset(), pageable.getPageSize(), pageable.getSort(), fields)
+                : findViews(Loan.class, specification, 0, -1, pageable.getSort(), fields);
+        return new PageImpl<>(content, pageable, count(Loan.class, specification));
+    }
+
+    /*
+     * Live and archived loans are read in one query over the loan_record view, so the
+     * database orders and slices the union itself and each filter still reaches the indexes
+     * of both tables. A loan keeps its id when archived, so the ids never clash.
+     */
+    @Override
+    public Page<LoanView> findViewsWithArchived(Specification<Loan> specification, Pageable pageable,
+                                                FieldSelection fields) {
+        Specification<LoanRecord> recordSpecification = records(specification);
+        List<LoanView> content = pageable.isPaged()
+                ? findViews(LoanRecord.class, recordSpecification, pageable.getOffset(), pageable.getPageSize(),
+                        pageable.getSort(), fields)
+                : findViews(LoanRecord.class, recordSpecification, 0, -1, pageable.getSort(), fields);
+        return new PageImpl<>(content, pageable, count(LoanRecord.class, recordSpecification));
+    }
+
+    /*
+     * Returned loans of a customer may be live or archived; each table is read as one range
+     * of its customer and loan date index and the two ranges are merged.
+     */
+    @Override
+    public List<CustomerLoanView> findCustomerLoans(Long customerId, boolean returned, LocalDateTime beforeLoanDate,
+                                                    Long beforeId, int limit) {
+        Specification<Loan> specification = LoanSpecifications.customerId(customerId)
+                .and(LoanSpecifications.returned(returned));
+        if (beforeId != null)
+            specification = specification.and(LoanSpecifications.loanedBefore(beforeLoanDate, beforeId));
+        List<CustomerLoanView> loans = findCustomerLoans(Loan.class, specification, limit);
+        if (!returned)
+            return loans;
+        List<CustomerLoanView> merged = new ArrayList<>(loans);
+        merged.addAll(findCustomerLoans(ArchivedLoan.class, archived(specification), limit));
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /*
+     * Loans are picked by return date, so editing a returned loan does not hold it back.
+     * Only loans whose return is already in the rollups are moved, so the rollup job never
+     * misses one. Their rollup markers go with them, as an archived loan no longer changes.
+     */
+    @Override
+    public int archiveReturnedBefore(LocalDateTime cutoff, int limit) {
+        List<Long> ids = entityManager.createQuery(" select l.id from Loan l where l.returned = true " +
+                        " and l.returnDate < :cutoff and exists ( select r.loanId from RolledUpLoan r " +
+                        " where r.loanId = l.id and r.returned = true ) order by l.returnDate, l.id ", Long.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty())
+            return 0;
+        moveLoans(" insert into loan_archive ( id, customer, customer_email, customer_id, book_id, loan_date, " +
+                " returned, return_date, last_modified, archived_at ) select id, customer, customer_email, customer_id, " +
+                " book_id, loan_date, returned, return_date, last_modified, :now from loan where id in ( :ids ) ", ids, true);
+        moveLoans(" delete from rolled_up_loan where loan_id in ( :ids ) ", ids, false);
+        return moveLoans(" delete from loan where id in ( :ids ) ", ids, false);
+    }
+
+    /*
+     * Tied to the loan tables only, so Hibernate keeps the book cache region.
+     */
+    private int moveLoans(String sql, List<Long> ids, boolean stamped) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Loan.class)
+                .addSynchronizedEntityClass(ArchivedLoan.class)
+                .addSynchronizedEntityClass(RolledUpLoan.class);
+        query.setParameterList("ids", ids);
+        if (stamped)
+            query.setParameter("now", ChangeClock.now());
+        return query.executeUpdate();
+    }
+
+    /*
+     * The book is only joined when one of its fields was selected; filters on the book
+     * still add their own join through the specification. The join is outer because an
+     * archived loan may outlive its book.
+     */
+    private <T> List<LoanView> findViews(Class<T> type, Specification<T> specification, long offset, int limit,
+                                         Sort sort, FieldSelection fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id").alias("id"));
+        if (fields.includes("customer"))
+            selections.add(root.get("customer").alias("customer"));
+        if (fields.includes("customerEmail"))
+            selections.add(root.get("customerEmail").alias("customerEmail"));
+        if (fields.includes("book")) {
+            Join<T, Book> book = root.join("book", JoinType.LEFT);
+            FieldSelection bookFields = fields.nested("book");
+            for (String field : BookView.FIELDS) {
+                if (bookFields.includes(field))
+                    selections.add(book.get(field).alias(BOOK_PREFIX + field));
+            }
+        }
+        query.multiselect(selections);
+        Predicate predicate = toPredicate(specification, root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit >= 0) {
+            typedQuery.setFirstResult((int) offset);
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList()
+                .stream()
+                .map(this::toView)
+                .collect(Collectors.toList());
+    }
+
+    private <T> List<CustomerLoanView> findCustomerLoans(Class<T> type, Specification<T> specification, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CustomerLoanView> query = cb.createQuery(CustomerLoanView.class);
+        Root<T> root = query.from(type);
+        Join<T, Book> book = root.join("book", JoinType.LEFT);
+        query.select(cb.construct(CustomerLoanView.class, root.get("id"), book.get("id"), book.get("isbn"),
+                book.get("title"), root.get("loanDate"), root.get("returned"), root.get("returnDate")));
+        query.where(specification.toPredicate(root, query, cb));
+        query.orderBy(cb.desc(root.get("loanDate")), cb.desc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private <T> long count(Class<T> type, Specification<T> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        Predicate predicate = toPredicate(specification, root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private <T> Predicate toPredicate(Specification<T> specification, Root<T> root,
+                                      CriteriaQuery<?> query, CriteriaBuilder cb) {
+        return specification == null ? null : specification.toPredicate(root, query, cb);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Specification<ArchivedLoan> archived(Specification<Loan> specification) {
+        return (Specification<ArchivedLoan>) (Specification<?>) specification;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Specification<LoanRecord> records(Specification<Loan> specification) {
+        return (Specification<LoanRecord>) (Specification<?>) specification;
+    }
+
+    private LoanView toView(Tuple tuple) {
+        boolean hasBook = tuple.getElements()
+                .stream()
+                .anyMatch(element -> element.getAlias().startsWith(BOOK_PREFIX));
+        Map<String, Object> values = new HashMap<>();
+        for (TupleElement<?> element : tuple.getElements())
+            values.put(element.getAlias(), tuple.get(element));
+        return new LoanView(
+                (Long) values.get("id"),
+                (String) values.get("customer"),
+                (String) values.get("customerEmail"),
+                hasBook ? BookView.of(tuple, BOOK_PREFIX) : null);
+    }
+
+}
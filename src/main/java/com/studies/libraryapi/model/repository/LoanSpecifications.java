@@ -0,0 +1,83 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.IsbnCodec;
+import com.studies.libraryapi.model.entity.Loan;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    public static Specification<Loan> bookId(Long bookId) {
+        return (root, query, cb) -> cb.equal(root.get("book").get("id"), bookId);
+    }
+
+    /**
+     * Loans of the book with the given isbn. The book is looked up in a subquery rather than
+     * through the loan's book join, which is outer when the book is selected and would make
+     * the database read every loan before it can filter by isbn.
+     */
+    public static Specification<Loan> isbn(String isbn) {
+        Long number = IsbnCodec.numberOf(isbn);
+        return (root, query, cb) -> {
+            Subquery<Long> books = query.subquery(Long.class);
+            Root<Book> book = books.from(Book.class);
+            books.select(book.get("id"))
+                    .where(number == null
+                            ? cb.equal(book.get("isbn"), isbn)
+                            : cb.equal(book.get("isbnNumber"), number));
+            return root.get("book").get("id").in(books);
+        };
+    }
+
+    public static Specification<Loan> customer(String customer) {
+        return (root, query, cb) -> cb.equal(root.get("customer"), customer);
+    }
+
+    public static Specification<Loan> customerId(Long customerId) {
+        return (root, query, cb) -> cb.equal(root.get("customerId"), customerId);
+    }
+
+    public static Specification<Loan> email(String email) {
+        return (root, query, cb) -> cb.equal(root.get("customerEmail"), email);
+    }
+
+    public static Specification<Loan> returned(boolean returned) {
+        return (root, query, cb) -> returned
+                ? cb.isTrue(root.<Boolean>get("returned"))
+                : cb.or(cb.isNull(root.get("returned")), cb.isFalse(root.<Boolean>get("returned")));
+    }
+
+    public static Specification<Loan> loanDateFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<LocalDateTime>get("loanDate"), from.atStartOfDay());
+    }
+
+    public static Specification<Loan> loanDateTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThan(root.<LocalDateTime>get("loanDate"), to.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Loans after the given one when ordered by descending loan date and id, with loans
+     * without a loan date last.
+     */
+    public static Specification<Loan> loanedBefore(LocalDateTime loanDate, Long id) {
+        return (root, query, cb) -> {
+            Predicate sameDate = loanDate == null
+                    ? cb.isNull(root.get("loanDate"))
+                    : cb.equal(root.get("loanDate"), loanDate);
+            Predicate sameDateBefore = cb.and(sameDate, cb.lessThan(root.get("id"), id));
+            if (loanDate == null)
+                return sameDateBefore;
+            return cb.or(cb.lessThan(root.get("loanDate"), loanDate), sameDateBefore, cb.isNull(root.get("loanDate")));
+        };
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.RolledUpLoan;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RolledUpLoanRepository extends JpaRepository<RolledUpLoan, Long> {
+
+}
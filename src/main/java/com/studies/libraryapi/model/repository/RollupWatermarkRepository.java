@@ -0,0 +1,8 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.RollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, String> {
+
+}
@@ -0,0 +1,21 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Tombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    @Query(" select t from Tombstone t where t.deletedAt < :until and ( t.deletedAt > :since " +
+            " or ( t.deletedAt = :since and t.id > :afterId ) ) order by t.deletedAt, t.id ")
+    List<Tombstone> findDeletedSince(@Param("since") LocalDateTime since,
+                                     @Param("afterId") Long afterId,
+                                     @Param("until") LocalDateTime until,
+                                     Pageable pageable);
+
+}
@@ -1,6 +1,8 @@
 package com.studies.libraryapi.service;
 
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -10,7 +12,9 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
-    Page<Book> find(Book filter, Pageable pageRequest);
+    Optional<BookView> getViewById(Long id);
+
+    Page<BookView> find(Book filter, Pageable pageRequest, FieldSelection fields);
 
     Book save(Book any);
 
@@ -0,0 +1,10 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.service.changes.ChangeCursor;
+import com.studies.libraryapi.service.changes.ChangeFeed;
+
+public interface ChangeFeedService {
+
+    ChangeFeed findChanges(ChangeCursor cursor, int size);
+
+}
@@ -0,0 +1,22 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.model.entity.Customer;
+import com.studies.libraryapi.service.customers.CustomerLoanCursor;
+import com.studies.libraryapi.service.customers.CustomerLoanPage;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerService {
+
+    Customer register(String name, String email);
+
+    Optional<Customer> getById(Long id);
+
+    CustomerLoanPage getLoans(Long customerId, CustomerLoanCursor cursor, int size);
+
+    List<Long> getIdsWithStaleOpenLoans();
+
+    int reconcileOpenLoans(Long customerId);
+
+}
@@ -0,0 +1,7 @@
+package com.studies.libraryapi.service;
+
+public interface LoanArchiveService {
+
+    int archiveReturnedLoans();
+
+}
@@ -3,6 +3,9 @@ package com.studies.libraryapi.service;
 import com.studies.libraryapi.api.dto.LoanFilterDTO;
 import com.studies.libraryapi.model.entity.Book;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import com.studies.libraryapi.service.checkout.CheckoutResult;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -11,15 +14,23 @@ import java.util.Optional;
 
 public interface LoanService {
 
+    int LOAN_DAYS = 4;
+
     Loan save(Loan loan);
 
+    List<CheckoutResult> saveAll(List<Loan> loans);
+
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
-    Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable);
+    Page<LoanView> find(LoanFilterDTO filterDTO, Pageable pageable, FieldSelection fields);
 
-    Page<Loan> getLoansByBook(Book book, Pageable pageable);
+    Page<LoanView> getLoansByBook(Book book, Pageable pageable);
 
     List<Loan> getAllLateLoans();
+
+    List<String> getLateCustomerEmails();
+
+    int reconcileBookAvailability();
 }
@@ -0,0 +1,25 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.model.entity.RollupDimension;
+import com.studies.libraryapi.model.projection.CirculationReportRow;
+import com.studies.libraryapi.service.history.HistoryCount;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+public interface ReportService {
+
+    enum Granularity { DAY, MONTH }
+
+    enum HistoryGrouping { AUTHOR, BOOK, CUSTOMER }
+
+    int rollUpChangedLoans();
+
+    List<CirculationReportRow> findCirculation(RollupDimension dimension, Granularity granularity,
+                                               LocalDate from, LocalDate to, Pageable pageable);
+
+    List<HistoryCount<String>> findLoanHistory(HistoryGrouping grouping, YearMonth from, YearMonth to);
+
+}
@@ -1,34 +1,65 @@
 package com.studies.libraryapi.service;
 
-import com.studies.libraryapi.model.entity.Loan;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ScheduleService {
 
     public final static String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
+    public final static String CRON_BOOK_AVAILABILITY = "0 15 * * * ?";
+    public final static String CRON_LOAN_ARCHIVE = "0 30 2 * * ?";
 
     @Value("${application.mail.lateloans.message}")
     private String message;
 
     private final LoanService loanService;
+    private final CustomerService customerService;
     private final EmailService emailService;
+    private final ReportService reportService;
+    private final LoanArchiveService loanArchiveService;
 
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+        List<String> mailsList = loanService.getLateCustomerEmails();
 
         emailService.sendEmails(message, mailsList);
     }
 
+    @Scheduled(cron = CRON_BOOK_AVAILABILITY)
+    public void reconcileBookAvailability() {
+        int repaired = loanService.reconcileBookAvailability();
+        for (Long customerId : customerService.getIdsWithStaleOpenLoans())
+            repaired += customerService.reconcileOpenLoans(customerId);
+        if (repaired > 0)
+            log.warn("repaired availability or open loan count drift on {} record(s)", repaired);
+    }
+
+    @Scheduled(fixedDelayString = "${application.rollup.interval}")
+    public void rollUpCirculation() {
+        int rolledUp = 0;
+        int batch;
+        while ((batch = reportService.rollUpChangedLoans()) > 0)
+            rolledUp += batch;
+        if (rolledUp > 0)
+            log.debug("rolled up {} changed loan(s)", rolledUp);
+    }
+
+    @Scheduled(cron = CRON_LOAN_ARCHIVE)
+    public void archiveReturnedLoans() {
+        int archived = 0;
+        int batch;
+        while ((batch = loanArchiveService.archiveReturnedLoans()) > 0)
+            archived += batch;
+        if (archived > 0)
+            log.info("archived {} returned loan(s)", archived);
+    }
+
 }
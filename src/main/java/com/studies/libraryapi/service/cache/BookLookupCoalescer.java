@@ -0,0 +1,52 @@
+package com.studies.libraryapi.service.cache;
+
+import com.studies.libraryapi.model.projection.BookView;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent lookups of the same book by id or isbn into one database call. Only
+ * immutable results are shared: views of a book, and the id an isbn resolves to. Callers that
+ * modify a book load their own managed entity.
+ */
+@Component
+public class BookLookupCoalescer implements MeterBinder {
+
+    private final SingleFlight<Long, Optional<BookView>> byId = new SingleFlight<>();
+    private final SingleFlight<String, Optional<Long>> byIsbn = new SingleFlight<>();
+
+    public Optional<BookView> viewById(Long id, Supplier<Optional<BookView>> loader) {
+        return byId.execute(id, loader);
+    }
+
+    public Optional<Long> idByIsbn(String isbn, Supplier<Optional<Long>> loader) {
+        return byIsbn.execute(isbn, loader);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "id", byId);
+        bind(registry, "isbn", byIsbn);
+    }
+
+    private static void bind(MeterRegistry registry, String lookup, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("library.book.lookups", flight, SingleFlight::getCalls)
+                .description("Book lookups requested")
+                .tag("lookup", lookup)
+                .register(registry);
+        FunctionCounter.builder("library.book.lookups.collapsed", flight, SingleFlight::getCollapsed)
+                .description("Book lookups served by a concurrent in-flight call")
+                .tag("lookup", lookup)
+                .register(registry);
+        Gauge.builder("library.book.lookups.in.flight", flight, SingleFlight::getInFlight)
+                .tag("lookup", lookup)
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.studies.libraryapi.service.cache;
+
+import com.studies.libraryapi.model.entity.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the book ids and total of recent catalog searches. Entries are tagged with the
+ * catalog version they were computed at, and any book write bumps the version, so a stale
+ * entry is never served.
+ */
+@Component
+public class CatalogSearchCache {
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<SearchKey, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CatalogSearchCache(@Value("${application.cache.catalog-search.max-entries}") int maxEntries) {
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<SearchKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchKey, CatalogSearchCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Searches on availability change with every checkout, which does not bump the catalog
+     * version, so they always go to the database.
+     */
+    public static boolean isCacheable(Book filter, Pageable pageable) {
+        return filter.getAvailable() == null && filter.getActiveLoanId() == null && pageable.isPaged();
+    }
+
+    public static SearchKey keyOf(Book filter, Pageable pageable) {
+        return new SearchKey(normalize(filter.getTitle()), normalize(filter.getAuthor()), normalize(filter.getIsbn()),
+                pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+    }
+
+    public long currentVersion() {
+        return catalogVersion.get();
+    }
+
+    public Optional<Entry> get(SearchKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.getVersion() != catalogVersion.get()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry);
+    }
+
+    public void put(SearchKey key, long version, List<Long> ids, long total) {
+        if (version == catalogVersion.get())
+            entries.put(key, new Entry(version, Collections.unmodifiableList(ids), total));
+    }
+
+    public void invalidate() {
+        catalogVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Invalidates now and again once the writing transaction completes, so a search that ran
+     * between the two cannot keep the pre-commit result.
+     */
+    public void invalidateAfterCompletion() {
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    @lombok.Value
+    public static class SearchKey {
+
+        String title;
+        String author;
+        String isbn;
+        int page;
+        int size;
+        String sort;
+
+    }
+
+    @lombok.Value
+    public static class Entry {
+
+        long version;
+        List<Long> ids;
+        long total;
+
+    }
+
+}
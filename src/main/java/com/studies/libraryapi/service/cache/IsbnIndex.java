@@ -0,0 +1,130 @@
+package com.studies.libraryapi.service.cache;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.IsbnCodec;
+import com.studies.libraryapi.model.projection.BookIsbn;
+import com.studies.libraryapi.model.repository.BookRespository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory map from packed ISBN to book id, loaded at startup and kept up to date as books
+ * are written by this instance, so finding a book by ISBN can go by id instead.
+ *
+ * The index is advisory: a miss does not mean no book has the ISBN, since books written by
+ * another instance or committed but not yet applied are missing, and a hit can be stale,
+ * since entries are never removed. Callers confirm a hit against the book itself and ask
+ * the database on a miss. ISBNs that do not pack, and all lookups made before the load
+ * finishes, are not covered.
+ */
+@Component
+@Slf4j
+public class IsbnIndex {
+
+    private static final int LOAD_BATCH = 10_000;
+    private static final long MISSING = 0;
+
+    private final BookRespository bookRespository;
+    private final LongLongHashMap ids;
+    private final StampedLock lock = new StampedLock();
+    private volatile boolean loaded;
+
+    public IsbnIndex(BookRespository bookRespository,
+                     @Value("${application.isbn-index.expected-books}") int expectedBooks) {
+        this.bookRespository = bookRespository;
+        this.ids = new LongLongHashMap(expectedBooks);
+    }
+
+    /*
+     * Writes are applied while loading too, so a book committed after its batch was read is
+     * not missed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0;
+        List<BookIsbn> batch;
+        do {
+            batch = bookRespository.findIsbnsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            for (BookIsbn book : batch)
+                put(book.getIsbn(), book.getId());
+            if (!batch.isEmpty())
+                afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == LOAD_BATCH);
+        loaded = true;
+        log.info("isbn index loaded with {} book(s) in {} slot(s)", size(), ids.capacity());
+    }
+
+    public boolean covers(String isbn) {
+        return loaded && IsbnCodec.pack(isbn) != IsbnCodec.NONE;
+    }
+
+    /**
+     * Id of a book that had the isbn, or empty when the index does not know one. Only
+     * meaningful for an isbn the index {@link #covers(String) covers}.
+     */
+    public Optional<Long> idOf(String isbn) {
+        long key = IsbnCodec.pack(isbn);
+        if (key == IsbnCodec.NONE)
+            return Optional.empty();
+        long stamp = lock.tryOptimisticRead();
+        long id = ids.get(key, MISSING);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = ids.get(key, MISSING);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id == MISSING ? Optional.empty() : Optional.of(id);
+    }
+
+    public void putAfterCommit(Book book) {
+        afterCommit(() -> put(book.getIsbn(), book.getId()));
+    }
+
+    public void put(String isbn, Long id) {
+        long key = IsbnCodec.pack(isbn);
+        if (key == IsbnCodec.NONE || id == null)
+            return;
+        long stamp = lock.writeLock();
+        try {
+            ids.put(key, id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return ids.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.studies.libraryapi.service.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Customers recently found at their open loan limit, so their further checkouts are turned
+ * away without touching the database. An entry only short-cuts a rejection the database
+ * made: it expires after a short time and is dropped once the customer returns a loan here,
+ * since returns on other instances and reconciles lower the count without this one knowing.
+ */
+@Component
+public class LoanLimitCache {
+
+    private final ConcurrentMap<Long, Long> atLimitUntil = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public LoanLimitCache(@Value("${application.loans.limit-cache.ttl}") Duration ttl,
+                          @Value("${application.loans.limit-cache.max-entries}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isAtLimit(Long customerId) {
+        Long until = atLimitUntil.get(customerId);
+        if (until == null)
+            return false;
+        if (System.nanoTime() - until >= 0) {
+            atLimitUntil.remove(customerId, until);
+            return false;
+        }
+        return true;
+    }
+
+    public void markAtLimit(Long customerId) {
+        if (atLimitUntil.size() < maxEntries || atLimitUntil.containsKey(customerId))
+            atLimitUntil.put(customerId, System.nanoTime() + ttlNanos);
+    }
+
+    /**
+     * Drops the entry once the current transaction commits, or immediately outside one, so a
+     * checkout racing the release is not cached against the count it is about to lower.
+     */
+    public void clearAfterCommit(Long customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            atLimitUntil.remove(customerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                atLimitUntil.remove(customerId);
+            }
+        });
+    }
+
+    public void clear() {
+        atLimitUntil.clear();
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.studies.libraryapi.service.cache;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from positive long keys to long values, with keys and values
+ * interleaved in one array so a lookup reads a single cache line in the common case. Slots
+ * use linear probing and removals shift later entries back instead of leaving tombstones.
+ *
+ * The table is sized from the expected entry count rather than rounded to a power of two, and
+ * up to four fifths of its slots are used, so a map holding its expected count costs 20 bytes
+ * an entry. Past that it grows by half, costing up to 30 bytes an entry right after growing.
+ * Not thread safe.
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] table;
+    private int size;
+
+    public LongLongHashMap(int expectedSize) {
+        long capacity = capacityFor(expectedSize);
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Expected size too large");
+        this.table = new long[2 * (int) capacity];
+    }
+
+    /**
+     * Safe to call while another thread writes, as long as the caller discards the result
+     * when a write overlapped: the probe is bounded and reads a single table reference.
+     */
+    public long get(long key, long missing) {
+        long[] slots = table;
+        int capacity = slots.length / 2;
+        for (int slot = slotOf(key, capacity), probes = 0; probes < capacity; slot = next(slot, capacity), probes++) {
+            long current = slots[2 * slot];
+            if (current == key)
+                return slots[2 * slot + 1];
+            if (current == EMPTY)
+                return missing;
+        }
+        return missing;
+    }
+
+    public boolean containsKey(long key) {
+        return key > 0 && indexOf(key) >= 0;
+    }
+
+    public void put(long key, long value) {
+        if (key <= 0)
+            throw new IllegalArgumentException("Keys must be positive");
+        int index = indexOf(key);
+        if (index >= 0) {
+            table[index + 1] = value;
+            return;
+        }
+        if (size + 1 > maxSize(capacity()))
+            resize(capacityFor(maxSize(capacity()) + maxSize(capacity()) / 2));
+        insert(table, key, value);
+        size++;
+    }
+
+    public boolean remove(long key) {
+        int index = indexOf(key);
+        if (index < 0)
+            return false;
+        int capacity = capacity();
+        int gap = index / 2;
+        for (int slot = next(gap, capacity); table[2 * slot] != EMPTY; slot = next(slot, capacity)) {
+            int home = slotOf(table[2 * slot], capacity);
+            if (distance(home, slot, capacity) >= distance(gap, slot, capacity)) {
+                table[2 * gap] = table[2 * slot];
+                table[2 * gap + 1] = table[2 * slot + 1];
+                gap = slot;
+            }
+        }
+        table[2 * gap] = EMPTY;
+        table[2 * gap + 1] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    private int indexOf(long key) {
+        int capacity = capacity();
+        for (int slot = slotOf(key, capacity); table[2 * slot] != EMPTY; slot = next(slot, capacity)) {
+            if (table[2 * slot] == key)
+                return 2 * slot;
+        }
+        return -1;
+    }
+
+    private void resize(long capacity) {
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalStateException("Map is full");
+        long[] resized = new long[2 * (int) capacity];
+        for (int index = 0; index < table.length; index += 2) {
+            if (table[index] != EMPTY)
+                insert(resized, table[index], table[index + 1]);
+        }
+        table = resized;
+    }
+
+    private static void insert(long[] slots, long key, long value) {
+        int capacity = slots.length / 2;
+        int slot = slotOf(key, capacity);
+        while (slots[2 * slot] != EMPTY)
+            slot = next(slot, capacity);
+        slots[2 * slot] = key;
+        slots[2 * slot + 1] = value;
+    }
+
+    private static int maxSize(int capacity) {
+        return (int) (capacity * 4L / 5);
+    }
+
+    private static long capacityFor(int expectedSize) {
+        return Math.max(MIN_CAPACITY, (expectedSize * 5L + 3) / 4);
+    }
+
+    private static int next(int slot, int capacity) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+
+    private static int distance(int from, int to, int capacity) {
+        return to >= from ? to - from : to + capacity - from;
+    }
+
+    /*
+     * Maps the high bits of the mixed key onto the table with a multiply, so the capacity
+     * does not have to be a power of two.
+     */
+    private static int slotOf(long key, int capacity) {
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        key ^= key >>> 31;
+        return (int) (((key >>> 32) * capacity) >>> 32);
+    }
+
+}
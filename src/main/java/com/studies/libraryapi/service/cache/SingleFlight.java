@@ -0,0 +1,65 @@
+package com.studies.libraryapi.service.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time. Callers that arrive while a load for the same key
+ * is in flight wait for it and share its result instead of starting their own.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            collapsed.increment();
+            return await(leader);
+        }
+
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+}
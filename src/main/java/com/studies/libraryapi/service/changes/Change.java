@@ -0,0 +1,41 @@
+package com.studies.libraryapi.service.changes;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.RecordType;
+import com.studies.libraryapi.model.entity.Tombstone;
+import lombok.Value;
+
+import java.util.Comparator;
+
+@Value
+public class Change {
+
+    public static final Comparator<Change> FEED_ORDER = Comparator
+            .comparing((Change change) -> change.getPosition().getModifiedAt())
+            .thenComparing(change -> change.getPosition().getSource())
+            .thenComparingLong(change -> change.getPosition().getId());
+
+    ChangeCursor position;
+    RecordType type;
+    Long recordId;
+    boolean deleted;
+    Book book;
+    Loan loan;
+
+    public static Change of(Book book) {
+        return new Change(new ChangeCursor(book.getLastModified(), ChangeCursor.Source.BOOK, book.getId()),
+                RecordType.BOOK, book.getId(), false, book, null);
+    }
+
+    public static Change of(Loan loan) {
+        return new Change(new ChangeCursor(loan.getLastModified(), ChangeCursor.Source.LOAN, loan.getId()),
+                RecordType.LOAN, loan.getId(), false, null, loan);
+    }
+
+    public static Change of(Tombstone tombstone) {
+        return new Change(new ChangeCursor(tombstone.getDeletedAt(), ChangeCursor.Source.TOMBSTONE, tombstone.getId()),
+                tombstone.getRecordType(), tombstone.getRecordId(), true, null, null);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.studies.libraryapi.service.changes;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the change feed: changes are ordered by modification time, then source, then
+ * id, and a cursor points at the last change a client has seen.
+ */
+@Value
+public class ChangeCursor {
+
+    public enum Source {
+        BOOK,
+        LOAN,
+        TOMBSTONE
+    }
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String SEPARATOR = "~";
+
+    LocalDateTime modifiedAt;
+    Source source;
+    long id;
+
+    /**
+     * A cursor that includes every change made at or after the given time.
+     */
+    public static ChangeCursor since(LocalDateTime modifiedAt) {
+        return new ChangeCursor(modifiedAt == null ? EPOCH : modifiedAt, Source.BOOK, Long.MIN_VALUE);
+    }
+
+    /**
+     * The id after which changes of the given source made exactly at {@link #getModifiedAt()}
+     * still follow this cursor.
+     */
+    public long afterIdFor(Source other) {
+        if (other == source)
+            return id;
+        return other.ordinal() > source.ordinal() ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    public String encode() {
+        String value = modifiedAt + SEPARATOR + source + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR);
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Invalid change cursor");
+            return new ChangeCursor(LocalDateTime.parse(parts[0]), Source.valueOf(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid change cursor", e);
+        }
+    }
+
+}
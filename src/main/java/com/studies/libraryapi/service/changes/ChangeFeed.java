@@ -0,0 +1,14 @@
+package com.studies.libraryapi.service.changes;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ChangeFeed {
+
+    List<Change> changes;
+    ChangeCursor next;
+    boolean more;
+
+}
@@ -0,0 +1,215 @@
+package com.studies.libraryapi.service.checkout;
+
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.service.LoanService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional group commit for checkouts. When enabled, concurrent checkouts are collected for
+ * up to {@code max-wait} or {@code max-batch} loans and saved by a single worker thread in one
+ * transaction, so a burst of checkouts shares one commit instead of paying for one each.
+ * Every caller still blocks until its own checkout is saved or refused.
+ *
+ * When the batch transaction fails as a whole, its checkouts are retried one by one so each
+ * caller gets the outcome of its own checkout. A checkout still queued after {@code timeout} is
+ * withdrawn and refused; one already in a batch may yet be saved, so its caller keeps waiting.
+ */
+@Component
+@Slf4j
+public class CheckoutBatcher implements SmartLifecycle {
+
+    private final LoanService service;
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final int maxBatch;
+    private final long timeoutNanos;
+    private final BlockingQueue<PendingCheckout> queue = new LinkedBlockingQueue<>();
+    private final Object lifecycleLock = new Object();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public CheckoutBatcher(LoanService service,
+                           @Value("${application.loans.group-commit.enabled}") boolean enabled,
+                           @Value("${application.loans.group-commit.max-wait}") Duration maxWait,
+                           @Value("${application.loans.group-commit.max-batch}") int maxBatch,
+                           @Value("${application.loans.group-commit.timeout}") Duration timeout) {
+        this.service = service;
+        this.enabled = enabled;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxBatch = maxBatch;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /*
+     * Checkouts are only queued while running, under the lock stop() takes to clear it, so
+     * none is queued after stop() has drained the queue.
+     */
+    public Loan checkout(Loan loan) {
+        if (!enabled)
+            return service.save(loan);
+        PendingCheckout checkout = new PendingCheckout(loan);
+        boolean queued;
+        synchronized (lifecycleLock) {
+            queued = running && queue.add(checkout);
+        }
+        if (!queued)
+            return service.save(loan);
+        try {
+            return checkout.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw failureOf(e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(checkout))
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout timed out");
+            return awaitBatch(checkout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (queue.remove(checkout))
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout interrupted");
+            return awaitBatch(checkout);
+        }
+    }
+
+    /*
+     * A checkout the worker has taken may still be saved, so its caller waits for the real
+     * outcome instead of being told it failed.
+     */
+    private Loan awaitBatch(PendingCheckout checkout) {
+        try {
+            return checkout.result.join();
+        } catch (CompletionException e) {
+            throw failureOf(e.getCause());
+        }
+    }
+
+    private static RuntimeException failureOf(Throwable cause) {
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+        return new IllegalStateException(cause);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled)
+            return;
+        running = true;
+        worker = new Thread(this::run, "loan-checkout-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /*
+     * Checkouts queued before the worker stopped are still saved, by the worker or, once it
+     * has exited, one by one here.
+     */
+    @Override
+    public void stop() {
+        synchronized (lifecycleLock) {
+            running = false;
+        }
+        if (worker == null)
+            return;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingCheckout checkout;
+        while ((checkout = queue.poll()) != null)
+            commitAlone(checkout);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<PendingCheckout> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch, maxBatch - batch.size());
+            }
+            if (!batch.isEmpty())
+                commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void collect(List<PendingCheckout> batch) throws InterruptedException {
+        PendingCheckout first = queue.take();
+        batch.add(first);
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatch) {
+            PendingCheckout next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null)
+                return;
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingCheckout> batch) {
+        List<Loan> loans = new ArrayList<>(batch.size());
+        for (PendingCheckout checkout : batch)
+            loans.add(checkout.loan);
+        List<CheckoutResult> results;
+        try {
+            results = service.saveAll(loans);
+        } catch (RuntimeException e) {
+            log.warn("checkout batch of {} failed, saving its loans one by one", batch.size(), e);
+            batch.forEach(this::commitAlone);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            CheckoutResult result = results.get(i);
+            if (result.isSuccess())
+                batch.get(i).result.complete(result.getLoan());
+            else
+                batch.get(i).result.completeExceptionally(result.getError());
+        }
+    }
+
+    /*
+     * The id a loan got in a rolled back batch is cleared so it is inserted again.
+     */
+    private void commitAlone(PendingCheckout checkout) {
+        checkout.loan.setId(null);
+        try {
+            checkout.result.complete(service.save(checkout.loan));
+        } catch (RuntimeException e) {
+            checkout.result.completeExceptionally(e);
+        }
+    }
+
+    private static class PendingCheckout {
+
+        private final Loan loan;
+        private final CompletableFuture<Loan> result = new CompletableFuture<>();
+
+        PendingCheckout(Loan loan) {
+            this.loan = loan;
+        }
+
+    }
+
+}
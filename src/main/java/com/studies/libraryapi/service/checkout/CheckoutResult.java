@@ -0,0 +1,25 @@
+package com.studies.libraryapi.service.checkout;
+
+import com.studies.libraryapi.exception.BusinessException;
+import com.studies.libraryapi.model.entity.Loan;
+import lombok.Value;
+
+@Value
+public class CheckoutResult {
+
+    Loan loan;
+    BusinessException error;
+
+    public static CheckoutResult of(Loan loan) {
+        return new CheckoutResult(loan, null);
+    }
+
+    public static CheckoutResult failed(BusinessException error) {
+        return new CheckoutResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.studies.libraryapi.service.customers;
+
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a customer's loan history: open loans come first, then returned ones, each
+ * newest loan date first with ties broken by descending id. A cursor points at the last loan
+ * a client has seen, or at the start of a phase when it has no id.
+ */
+@Value
+public class CustomerLoanCursor {
+
+    public enum Phase {
+        OPEN,
+        RETURNED
+    }
+
+    public static final CustomerLoanCursor FIRST = startOf(Phase.OPEN);
+
+    private static final String SEPARATOR = "~";
+
+    Phase phase;
+    LocalDateTime loanDate;
+    Long id;
+
+    public static CustomerLoanCursor startOf(Phase phase) {
+        return new CustomerLoanCursor(phase, null, null);
+    }
+
+    public static CustomerLoanCursor after(CustomerLoanView loan) {
+        return new CustomerLoanCursor(loan.isOpen() ? Phase.OPEN : Phase.RETURNED, loan.getLoanDate(), loan.getId());
+    }
+
+    public String encode() {
+        String value = phase + SEPARATOR + (loanDate == null ? "" : loanDate) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CustomerLoanCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR, -1);
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Invalid loan cursor");
+            return new CustomerLoanCursor(Phase.valueOf(parts[0]),
+                    parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid loan cursor", e);
+        }
+    }
+
+}
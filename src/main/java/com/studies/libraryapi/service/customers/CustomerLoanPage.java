@@ -0,0 +1,18 @@
+package com.studies.libraryapi.service.customers;
+
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class CustomerLoanPage {
+
+    List<CustomerLoanView> loans;
+    CustomerLoanCursor next;
+
+    public boolean hasMore() {
+        return next != null;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.studies.libraryapi.service.event;
+
+import com.studies.libraryapi.model.entity.Book;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookUpdated implements LibraryEvent {
+
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    Long bookId;
+    String isbn;
+    Kind kind;
+    LocalDateTime occurredAt;
+
+    public static BookUpdated of(Book book, Kind kind) {
+        return new BookUpdated(book.getId(), book.getIsbn(), kind, LocalDateTime.now());
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.studies.libraryapi.service.event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded ring of pre-allocated slots for many producers and a single consumer. Producers
+ * claim a sequence with a CAS and publish the slot by writing its sequence; the consumer
+ * reads slots in sequence order until it meets one that is not published yet.
+ */
+public class EventRing<E> {
+
+    private final Object[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long consumed = -1;
+
+    public EventRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Ring capacity must be a power of two");
+        this.entries = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++)
+            published.set(i, -1);
+    }
+
+    /**
+     * Adds the event unless the ring is full, in which case it returns false at once.
+     */
+    public boolean offer(E event) {
+        long sequence;
+        do {
+            long last = claimed.get();
+            sequence = last + 1;
+            if (sequence - consumed > entries.length)
+                return false;
+            if (claimed.compareAndSet(last, sequence))
+                break;
+        } while (true);
+
+        int index = (int) (sequence & mask);
+        entries[index] = event;
+        published.set(index, sequence);
+        return true;
+    }
+
+    /**
+     * Moves up to {@code maxBatch} published events into {@code batch}; consumer thread only.
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(List<E> batch, int maxBatch) {
+        long next = consumed + 1;
+        int drained = 0;
+        while (drained < maxBatch) {
+            int index = (int) (next & mask);
+            if (published.get(index) != next)
+                break;
+            batch.add((E) entries[index]);
+            entries[index] = null;
+            next++;
+            drained++;
+        }
+        if (drained > 0)
+            consumed = next - 1;
+        return drained;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+
+}
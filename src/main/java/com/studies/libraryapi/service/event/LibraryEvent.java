@@ -0,0 +1,12 @@
+package com.studies.libraryapi.service.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Something that happened to a loan or a book, published once the change has committed.
+ */
+public interface LibraryEvent {
+
+    LocalDateTime getOccurredAt();
+
+}
@@ -0,0 +1,176 @@
+package com.studies.libraryapi.service.event;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * In-process pipeline for {@link LibraryEvent}s. Publishers never block: events go into an
+ * {@link EventRing} and a single dispatcher thread hands them to every
+ * {@link LibraryEventListener} in batches. When the ring is full the event is dropped and
+ * counted, so listeners must treat events as hints and not as the source of truth.
+ */
+@Component
+@Slf4j
+public class LibraryEventBus implements SmartLifecycle, MeterBinder {
+
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventRing<LibraryEvent> ring;
+    private final int batchSize;
+    private final ObjectProvider<LibraryEventListener> listenerProvider;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile List<LibraryEventListener> listeners = new ArrayList<>();
+    private volatile boolean running;
+    private volatile DistributionSummary batchSizes;
+    private Thread dispatcher;
+
+    public LibraryEventBus(@Value("${application.events.ring-size}") int ringSize,
+                           @Value("${application.events.batch-size}") int batchSize,
+                           ObjectProvider<LibraryEventListener> listenerProvider) {
+        this.ring = new EventRing<>(ringSize);
+        this.batchSize = batchSize;
+        this.listenerProvider = listenerProvider;
+    }
+
+    /**
+     * Publishes once the current transaction commits, or immediately outside a transaction.
+     * Nothing is published when the transaction rolls back.
+     */
+    public void publishAfterCommit(LibraryEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+
+    public boolean publish(LibraryEvent event) {
+        if (ring.offer(event)) {
+            published.increment();
+            return true;
+        }
+        dropped.increment();
+        log.debug("event ring full, dropping {}", event.getClass().getSimpleName());
+        return false;
+    }
+
+    @Override
+    public void start() {
+        listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+        running = true;
+        dispatcher = new Thread(this::dispatch, "library-event-bus");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (dispatcher == null)
+            return;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.events.published", published, LongAdder::sum)
+                .description("Events accepted by the event ring")
+                .register(registry);
+        FunctionCounter.builder("library.events.dropped", dropped, LongAdder::sum)
+                .description("Events dropped because the event ring was full")
+                .register(registry);
+        FunctionCounter.builder("library.events.delivered", delivered, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("library.events.listener.failures", failed, LongAdder::sum)
+                .register(registry);
+        Gauge.builder("library.events.backlog", ring, EventRing::size)
+                .description("Events waiting in the event ring")
+                .register(registry);
+        Gauge.builder("library.events.capacity", ring, EventRing::capacity)
+                .register(registry);
+        batchSizes = DistributionSummary.builder("library.events.batch.size")
+                .register(registry);
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    private void dispatch() {
+        List<LibraryEvent> batch = new ArrayList<>(batchSize);
+        long idleNanos = 1;
+        while (running || ring.size() > 0) {
+            if (ring.drainTo(batch, batchSize) == 0) {
+                if (!running)
+                    break;
+                LockSupport.parkNanos(idleNanos);
+                idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+                continue;
+            }
+            idleNanos = 1;
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<LibraryEvent> batch) {
+        List<LibraryEvent> events = List.copyOf(batch);
+        for (LibraryEventListener listener : listeners) {
+            try {
+                listener.onEvents(events);
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("event listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+        delivered.add(batch.size());
+        DistributionSummary summary = batchSizes;
+        if (summary != null)
+            summary.record(batch.size());
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.studies.libraryapi.service.event;
+
+import java.util.List;
+
+/**
+ * Receives published events in batches, in publication order, on the event bus thread.
+ * Implementations must not block for long: the next batch waits for every listener.
+ */
+public interface LibraryEventListener {
+
+    void onEvents(List<LibraryEvent> events);
+
+}
@@ -0,0 +1,23 @@
+package com.studies.libraryapi.service.event;
+
+import com.studies.libraryapi.model.entity.Loan;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class LoanCreated implements LibraryEvent {
+
+    Long loanId;
+    Long bookId;
+    String customer;
+    String customerEmail;
+    LocalDateTime loanDate;
+    LocalDateTime occurredAt;
+
+    public static LoanCreated of(Loan loan) {
+        return new LoanCreated(loan.getId(), loan.getBook().getId(), loan.getCustomer(), loan.getCustomerEmail(),
+                loan.getLoanDate(), LocalDateTime.now());
+    }
+
+}
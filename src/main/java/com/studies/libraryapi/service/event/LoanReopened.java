@@ -0,0 +1,22 @@
+package com.studies.libraryapi.service.event;
+
+import com.studies.libraryapi.model.entity.Loan;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class LoanReopened implements LibraryEvent {
+
+    Long loanId;
+    Long bookId;
+    String customer;
+    LocalDateTime loanDate;
+    LocalDateTime occurredAt;
+
+    public static LoanReopened of(Loan loan) {
+        return new LoanReopened(loan.getId(), loan.getBook().getId(), loan.getCustomer(), loan.getLoanDate(),
+                LocalDateTime.now());
+    }
+
+}
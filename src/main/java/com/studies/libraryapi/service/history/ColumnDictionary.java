@@ -0,0 +1,112 @@
+package com.studies.libraryapi.service.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the values of a column to dense int codes, in order of first appearance. New values
+ * are appended to a file and flushed before a row can refer to them.
+ */
+class ColumnDictionary<T> implements Closeable {
+
+    interface Codec<T> {
+
+        T read(DataInput in) throws IOException;
+
+        void write(DataOutput out, T value) throws IOException;
+
+    }
+
+    static final Codec<Long> LONGS = new Codec<Long>() {
+        @Override
+        public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+
+        @Override
+        public void write(DataOutput out, Long value) throws IOException {
+            out.writeLong(value);
+        }
+    };
+
+    static final Codec<String> STRINGS = new Codec<String>() {
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+
+        @Override
+        public void write(DataOutput out, String value) throws IOException {
+            out.writeUTF(value);
+        }
+    };
+
+    private final List<T> values = new ArrayList<>();
+    private final Map<T, Integer> codes = new HashMap<>();
+    private final Codec<T> codec;
+    private final DataOutputStream out;
+
+    ColumnDictionary(Path file, Codec<T> codec) throws IOException {
+        this.codec = codec;
+        if (Files.exists(file)) {
+            DataOutputStream valid = new DataOutputStream(OutputStream.nullOutputStream());
+            try (InputStream stream = Files.newInputStream(file);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+                while (true) {
+                    T value = codec.read(in);
+                    codec.write(valid, value);
+                    add(value);
+                }
+            } catch (EOFException endOfDictionary) {
+                // a value cut short by a crash was never referenced by a row, so it is dropped
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid.size());
+            }
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    synchronized int codeOf(T value) throws IOException {
+        Integer code = codes.get(value);
+        if (code != null)
+            return code;
+        codec.write(out, value);
+        out.flush();
+        return add(value);
+    }
+
+    synchronized List<T> snapshot() {
+        return new ArrayList<>(values);
+    }
+
+    private int add(T value) {
+        codes.put(value, values.size());
+        values.add(value);
+        return values.size() - 1;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+}
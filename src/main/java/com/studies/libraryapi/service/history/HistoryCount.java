@@ -0,0 +1,15 @@
+package com.studies.libraryapi.service.history;
+
+import lombok.Value;
+
+import java.time.YearMonth;
+
+@Value
+public class HistoryCount<K> {
+
+    K key;
+    YearMonth month;
+    long loans;
+    long loanSeconds;
+
+}
@@ -0,0 +1,226 @@
+package com.studies.libraryapi.service.history;
+
+import com.studies.libraryapi.service.event.LibraryEvent;
+import com.studies.libraryapi.service.event.LibraryEventListener;
+import com.studies.libraryapi.service.event.LoanReturned;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Append-only, column-oriented history of closed loans, kept in memory-mapped files outside
+ * the database. Book ids and customers are dictionary encoded to int codes; the loan date is
+ * stored as seconds after {@link #EPOCH} and the return as seconds after the loan date, so a
+ * row is four ints.
+ *
+ * Rows live in fixed-size segments of one file per column. A single writer, the event bus
+ * thread, appends rows and then publishes the new row count, so scans only ever see whole
+ * rows and never block the writer.
+ */
+@Component
+@Slf4j
+public class LoanHistoryStore implements LibraryEventListener, Closeable {
+
+    static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private static final int DEFAULT_SEGMENT_ROWS = 1 << 20;
+    private static final long MAX_GROUPS = 1 << 22;
+
+    private final Path directory;
+    private final int segmentRows;
+    private final ColumnDictionary<Long> books;
+    private final ColumnDictionary<String> customers;
+    private final MappedByteBuffer header;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile long rows;
+
+    @Autowired
+    public LoanHistoryStore(@Value("${application.history.directory}") String directory) {
+        this(Paths.get(directory), DEFAULT_SEGMENT_ROWS);
+    }
+
+    LoanHistoryStore(Path directory, int segmentRows) {
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+        try {
+            Files.createDirectories(directory);
+            this.books = new ColumnDictionary<>(directory.resolve("book.dict"), ColumnDictionary.LONGS);
+            this.customers = new ColumnDictionary<>(directory.resolve("customer.dict"), ColumnDictionary.STRINGS);
+            this.header = map(directory.resolve("rows"), Long.BYTES);
+            this.rows = header.getLong(0);
+            for (int segment = 0; (long) segment * segmentRows < rows; segment++)
+                segments.add(new Segment(segment));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open loan history at " + directory, e);
+        }
+        log.info("loan history at {} opened with {} row(s)", directory, rows);
+    }
+
+    @Override
+    public void onEvents(List<LibraryEvent> events) {
+        for (LibraryEvent event : events) {
+            if (!(event instanceof LoanReturned))
+                continue;
+            LoanReturned loan = (LoanReturned) event;
+            try {
+                append(loan.getBookId(), loan.getCustomer(), loan.getLoanDate(), loan.getOccurredAt());
+            } catch (IllegalArgumentException e) {
+                log.warn("loan {} not added to the history: {}", loan.getLoanId(), e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void append(Long bookId, String customer, LocalDateTime loanDate, LocalDateTime returnDate) {
+        if (bookId == null || loanDate == null || returnDate == null)
+            throw new IllegalArgumentException("Book, loan date and return date are required");
+        int loanedAt = toIntExact(ChronoUnit.SECONDS.between(EPOCH, loanDate), "Loan date out of range");
+        int loanSeconds = toIntExact(Math.max(0, ChronoUnit.SECONDS.between(loanDate, returnDate)), "Loan too long");
+        long row = rows;
+        int segment = (int) (row / segmentRows);
+        int index = (int) (row % segmentRows);
+        try {
+            if (segment == segments.size())
+                segments.add(new Segment(segment));
+            Segment columns = segments.get(segment);
+            columns.book.put(index, books.codeOf(bookId));
+            columns.customer.put(index, customers.codeOf(Objects.toString(customer, "")));
+            columns.loanedAt.put(index, loanedAt);
+            columns.loanSeconds.put(index, loanSeconds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to loan history at " + directory, e);
+        }
+        header.putLong(0, row + 1);
+        rows = row + 1;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public List<HistoryCount<Long>> countByBook(YearMonth from, YearMonth to) {
+        long total = rows;
+        return count(segment -> segment.book, books.snapshot(), total, from, to);
+    }
+
+    public List<HistoryCount<String>> countByCustomer(YearMonth from, YearMonth to) {
+        long total = rows;
+        return count(segment -> segment.customer, customers.snapshot(), total, from, to);
+    }
+
+    /*
+     * The row count is read before the dictionary, so every code in the scanned rows is
+     * already in the dictionary snapshot.
+     */
+    private <K> List<HistoryCount<K>> count(Function<Segment, IntBuffer> keyColumn, List<K> keys, long total,
+                                            YearMonth from, YearMonth to) {
+        int months = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+        if (months < 1)
+            throw new IllegalArgumentException("The first month must not be after the last one");
+        if ((long) keys.size() * months > MAX_GROUPS)
+            throw new IllegalArgumentException("Too many groups, narrow the month range");
+
+        long[] monthStarts = new long[months + 1];
+        for (int month = 0; month <= months; month++)
+            monthStarts[month] = ChronoUnit.SECONDS.between(EPOCH, from.plusMonths(month).atDay(1).atStartOfDay());
+        long first = monthStarts[0];
+        long end = monthStarts[months];
+
+        long[] loans = new long[keys.size() * months];
+        long[] loanSeconds = new long[keys.size() * months];
+        for (int segment = 0; (long) segment * segmentRows < total; segment++) {
+            Segment columns = segments.get(segment);
+            IntBuffer key = keyColumn.apply(columns);
+            int segmentTotal = (int) Math.min(segmentRows, total - (long) segment * segmentRows);
+            for (int row = 0; row < segmentTotal; row++) {
+                int loanedAt = columns.loanedAt.get(row);
+                if (loanedAt < first || loanedAt >= end)
+                    continue;
+                int month = Arrays.binarySearch(monthStarts, loanedAt);
+                int group = key.get(row) * months + (month >= 0 ? month : -month - 2);
+                loans[group]++;
+                loanSeconds[group] += columns.loanSeconds.get(row);
+            }
+        }
+
+        List<HistoryCount<K>> counts = new ArrayList<>();
+        for (int group = 0; group < loans.length; group++) {
+            if (loans[group] > 0)
+                counts.add(new HistoryCount<>(keys.get(group / months), from.plusMonths(group % months),
+                        loans[group], loanSeconds[group]));
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        header.force();
+        for (Segment segment : segments)
+            segment.force();
+        books.close();
+        customers.close();
+    }
+
+    private MappedByteBuffer map(Path file, long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private static int toIntExact(long value, String message) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(message);
+        return (int) value;
+    }
+
+    private class Segment {
+
+        private final MappedByteBuffer[] files = new MappedByteBuffer[4];
+        private final IntBuffer book;
+        private final IntBuffer customer;
+        private final IntBuffer loanedAt;
+        private final IntBuffer loanSeconds;
+
+        Segment(int segment) throws IOException {
+            Path segmentDirectory = Files.createDirectories(directory.resolve(String.format("segment-%06d", segment)));
+            this.book = column(segmentDirectory, "book", 0);
+            this.customer = column(segmentDirectory, "customer", 1);
+            this.loanedAt = column(segmentDirectory, "loaned-at", 2);
+            this.loanSeconds = column(segmentDirectory, "loan-seconds", 3);
+        }
+
+        private IntBuffer column(Path segmentDirectory, String name, int file) throws IOException {
+            files[file] = map(segmentDirectory.resolve(name + ".col"), (long) segmentRows * Integer.BYTES);
+            return files[file].duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        void force() {
+            for (MappedByteBuffer file : files)
+                file.force();
+        }
+
+    }
+
+}
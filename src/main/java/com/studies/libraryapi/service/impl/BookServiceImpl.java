@@ -2,32 +2,104 @@ package com.studies.libraryapi.service.impl;
 
 import com.studies.libraryapi.exception.BusinessException;
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.IsbnCodec;
+import com.studies.libraryapi.model.entity.RecordType;
+import com.studies.libraryapi.model.entity.Tombstone;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
 import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.TombstoneRepository;
 import com.studies.libraryapi.service.BookService;
+import com.studies.libraryapi.service.cache.BookLookupCoalescer;
+import com.studies.libraryapi.service.cache.CatalogSearchCache;
+import com.studies.libraryapi.service.cache.IsbnIndex;
+import com.studies.libraryapi.service.event.BookUpdated;
+import com.studies.libraryapi.service.event.LibraryEventBus;
+import com.studies.libraryapi.service.journal.JournalEntry;
+import com.studies.libraryapi.service.journal.MutationJournal;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
 
     private BookRespository bookRespository;
 
-    public BookServiceImpl(BookRespository bookRespository) {
+    private CatalogSearchCache searchCache;
+
+    private BookLookupCoalescer lookupCoalescer;
+
+    private TombstoneRepository tombstoneRepository;
+
+    private LibraryEventBus eventBus;
+
+    private MutationJournal journal;
+
+    private IsbnIndex isbnIndex;
+
+    public BookServiceImpl(BookRespository bookRespository, CatalogSearchCache searchCache,
+                           BookLookupCoalescer lookupCoalescer, TombstoneRepository tombstoneRepository,
+                           LibraryEventBus eventBus, MutationJournal journal, IsbnIndex isbnIndex) {
         this.bookRespository = bookRespository;
+        this.searchCache = searchCache;
+        this.lookupCoalescer = lookupCoalescer;
+        this.tombstoneRepository = tombstoneRepository;
+        this.eventBus = eventBus;
+        this.journal = journal;
+        this.isbnIndex = isbnIndex;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
         return bookRespository.findById(id);
     }
 
+    /*
+     * Views run without a surrounding transaction: the repository opens its own read-only
+     * one, so callers waiting on an in-flight lookup do not hold a connection.
+     */
     @Override
-    public Page<Book> find(Book filter, Pageable pageRequest) {
+    public Optional<BookView> getViewById(Long id) {
+        return lookupCoalescer.viewById(id, () -> bookRespository.findById(id).map(BookView::of));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookView> find(Book filter, Pageable pageRequest, FieldSelection fields) {
+        if (!CatalogSearchCache.isCacheable(filter, pageRequest))
+            return findViews(filter, pageRequest, fields);
+
+        CatalogSearchCache.SearchKey key = CatalogSearchCache.keyOf(filter, pageRequest);
+        Optional<Page<BookView>> cached = searchCache.get(key)
+                .flatMap(entry -> hydrate(entry, pageRequest));
+        if (cached.isPresent())
+            return cached.get();
+
+        long version = searchCache.currentVersion();
+        Page<BookView> result = findViews(filter, pageRequest, fields);
+        List<Long> ids = result.getContent()
+                .stream()
+                .map(BookView::getId)
+                .collect(Collectors.toList());
+        searchCache.put(key, version, ids, result.getTotalElements());
+        return result;
+    }
+
+    private Page<BookView> findViews(Book filter, Pageable pageRequest, FieldSelection fields) {
         Example<Book> example = Example.of(filter,
                     ExampleMatcher
                             .matching()
@@ -36,33 +108,105 @@ public class BookServiceImpl implements BookService {
                             .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING )
                 );
 
-        return bookRespository.findAll(example, pageRequest);
+        return bookRespository.findViews(example, pageRequest, fields);
+    }
+
+    /*
+     * The cached ids are read back in one query, which returns current availability, and put
+     * back in the cached order. A page with a book that no longer exists is searched again.
+     */
+    private Optional<Page<BookView>> hydrate(CatalogSearchCache.Entry entry, Pageable pageRequest) {
+        Map<Long, Book> books = bookRespository.findAllById(entry.getIds())
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<BookView> views = new ArrayList<>(entry.getIds().size());
+        for (Long id : entry.getIds()) {
+            Book book = books.get(id);
+            if (book == null)
+                return Optional.empty();
+            views.add(BookView.of(book));
+        }
+        return Optional.of(new PageImpl<>(views, pageRequest, entry.getTotal()));
     }
 
     @Override
+    @Transactional
     public Book save(Book book) {
-        if ( bookRespository.existsByIsbn(book.getIsbn()) )
+        if ( isbnTaken(book.getIsbn()) )
             throw new BusinessException("ISBN already created");
-        return bookRespository.save(book);
+        book.setAvailable(true);
+        book.setActiveLoanId(null);
+        searchCache.invalidateAfterCompletion();
+        Book savedBook = bookRespository.save(book);
+        isbnIndex.putAfterCommit(savedBook);
+        eventBus.publishAfterCommit(BookUpdated.of(savedBook, BookUpdated.Kind.CREATED));
+        journal.recordAfterCommit(JournalEntry.of(JournalEntry.Type.BOOK_CREATED, savedBook));
+        return savedBook;
     }
 
     @Override
+    @Transactional
     public Book update(Book book) {
         if (checkBookNull(book))
             throw new IllegalArgumentException("Book cannot be null");
-        return bookRespository.save(book);
+        searchCache.invalidateAfterCompletion();
+        Book updatedBook = bookRespository.save(book);
+        isbnIndex.putAfterCommit(updatedBook);
+        eventBus.publishAfterCommit(BookUpdated.of(updatedBook, BookUpdated.Kind.UPDATED));
+        journal.recordAfterCommit(JournalEntry.of(JournalEntry.Type.BOOK_UPDATED, updatedBook));
+        return updatedBook;
     }
 
     @Override
+    @Transactional
     public void delete(Book book) {
         if (checkBookNull(book))
             throw new IllegalArgumentException("Book cannot be null");
+        searchCache.invalidateAfterCompletion();
         bookRespository.delete(book);
+        tombstoneRepository.save(Tombstone.of(RecordType.BOOK, book.getId()));
+        eventBus.publishAfterCommit(BookUpdated.of(book, BookUpdated.Kind.DELETED));
+        journal.recordAfterCommit(JournalEntry.of(JournalEntry.Type.BOOK_DELETED, book));
+    }
+
+    /*
+     * A miss is not trusted, as a book written by another instance or committed just now is
+     * not in the index yet, so only a confirmed hit spares the query.
+     */
+    private boolean isbnTaken(String isbn) {
+        return indexedBook(isbn).isPresent() || bookRespository.existsByIsbn(isbn);
     }
 
+    /*
+     * An index hit is read by id, which the second-level cache serves, and is only trusted
+     * when the book still has that isbn number; a miss or a stale hit is looked up by isbn.
+     */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getBookByIsbn(String isbn) {
-        return bookRespository.findByIsbn(isbn);
+        Optional<Book> book = indexedBook(isbn);
+        if (book.isPresent())
+            return book;
+        book = findByIsbn(isbn);
+        book.ifPresent(found -> isbnIndex.put(found.getIsbn(), found.getId()));
+        return book;
+    }
+
+    private Optional<Book> indexedBook(String isbn) {
+        if (!isbnIndex.covers(isbn))
+            return Optional.empty();
+        return isbnIndex.idOf(isbn)
+                .flatMap(bookRespository::findById)
+                .filter(book -> Objects.equals(book.getIsbnNumber(), IsbnCodec.numberOf(isbn)));
+    }
+
+    /*
+     * Concurrent lookups of one isbn share resolving it to an id; each caller then loads its
+     * own managed book by id, which the second-level cache serves.
+     */
+    private Optional<Book> findByIsbn(String isbn) {
+        return lookupCoalescer.idByIsbn(isbn, () -> bookRespository.findByIsbn(isbn).map(Book::getId))
+                .flatMap(bookRespository::findById);
     }
 
     private boolean checkBookNull( Book book ) {
@@ -0,0 +1,69 @@
+package com.studies.libraryapi.service.impl;
+
+import com.studies.libraryapi.model.entity.ChangeClock;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.model.repository.TombstoneRepository;
+import com.studies.libraryapi.service.ChangeFeedService;
+import com.studies.libraryapi.service.changes.Change;
+import com.studies.libraryapi.service.changes.ChangeCursor;
+import com.studies.libraryapi.service.changes.ChangeFeed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private BookRespository bookRespository;
+
+    private LoanRepository loanRepository;
+
+    private TombstoneRepository tombstoneRepository;
+
+    private Duration commitLag;
+
+    public ChangeFeedServiceImpl(BookRespository bookRespository, LoanRepository loanRepository,
+                                 TombstoneRepository tombstoneRepository,
+                                 @Value("${application.changes.commit-lag}") Duration commitLag) {
+        this.bookRespository = bookRespository;
+        this.loanRepository = loanRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.commitLag = commitLag;
+    }
+
+    /*
+     * Timestamps are taken before commit, so a change stamped just now may still become
+     * visible after newer ones; changes younger than the commit lag are held back until
+     * they can no longer be overtaken.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ChangeFeed findChanges(ChangeCursor cursor, int size) {
+        LocalDateTime since = cursor.getModifiedAt();
+        LocalDateTime until = ChangeClock.now().minus(commitLag);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Change> changes = new ArrayList<>();
+        bookRespository.findChangedSince(since, cursor.afterIdFor(ChangeCursor.Source.BOOK), until, limit)
+                .forEach(book -> changes.add(Change.of(book)));
+        loanRepository.findChangedSince(since, cursor.afterIdFor(ChangeCursor.Source.LOAN), until, limit)
+                .forEach(loan -> changes.add(Change.of(loan)));
+        tombstoneRepository.findDeletedSince(since, cursor.afterIdFor(ChangeCursor.Source.TOMBSTONE), until, limit)
+                .forEach(tombstone -> changes.add(Change.of(tombstone)));
+        changes.sort(Change.FEED_ORDER);
+
+        boolean more = changes.size() > size;
+        List<Change> page = new ArrayList<>(changes.subList(0, Math.min(size, changes.size())));
+        ChangeCursor next = page.isEmpty() ? cursor : page.get(page.size() - 1).getPosition();
+        return new ChangeFeed(page, next, more);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.studies.libraryapi.service.impl;
+
+import com.studies.libraryapi.model.entity.Customer;
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import com.studies.libraryapi.model.repository.CustomerRepository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.CustomerService;
+import com.studies.libraryapi.service.cache.LoanLimitCache;
+import com.studies.libraryapi.service.customers.CustomerLoanCursor;
+import com.studies.libraryapi.service.customers.CustomerLoanPage;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    private CustomerRepository repository;
+
+    private LoanRepository loanRepository;
+
+    private LoanLimitCache limitCache;
+
+    public CustomerServiceImpl(CustomerRepository repository, LoanRepository loanRepository,
+                               LoanLimitCache limitCache) {
+        this.repository = repository;
+        this.loanRepository = loanRepository;
+        this.limitCache = limitCache;
+    }
+
+    /*
+     * Customers are keyed by email. Runs without a surrounding transaction so that, when a
+     * concurrent call inserts the same email first, the unique index rejects only this insert
+     * and the customer it created can be read back.
+     */
+    @Override
+    public Customer register(String name, String email) {
+        if (!StringUtils.hasText(email))
+            throw new IllegalArgumentException("Customer email cannot be empty");
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        Optional<Customer> existing = repository.findByEmail(normalized);
+        if (existing.isPresent())
+            return existing.get();
+        try {
+            return repository.saveAndFlush(Customer.builder().name(name).email(normalized).build());
+        } catch (DataIntegrityViolationException e) {
+            return repository.findByEmail(normalized).orElseThrow(() -> e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Customer> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    /*
+     * One row past the page is read to know whether another page follows. Returned loans
+     * are only read once the open loans run out within the page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerLoanPage getLoans(Long customerId, CustomerLoanCursor cursor, int size) {
+        List<CustomerLoanView> loans = new ArrayList<>();
+        if (cursor.getPhase() == CustomerLoanCursor.Phase.OPEN) {
+            loans.addAll(loanRepository.findCustomerLoans(customerId, false, cursor.getLoanDate(), cursor.getId(),
+                    size + 1));
+            if (loans.size() > size)
+                return pageOf(loans, size);
+            cursor = CustomerLoanCursor.startOf(CustomerLoanCursor.Phase.RETURNED);
+        }
+        loans.addAll(loanRepository.findCustomerLoans(customerId, true, cursor.getLoanDate(), cursor.getId(),
+                size - loans.size() + 1));
+        return pageOf(loans, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> getIdsWithStaleOpenLoans() {
+        return repository.findIdsWithStaleOpenLoans();
+    }
+
+    /*
+     * Each customer is repaired in its own short transaction, holding its row lock only
+     * while its loans are counted.
+     */
+    @Override
+    @Transactional
+    public int reconcileOpenLoans(Long customerId) {
+        if (!repository.lockById(customerId).isPresent())
+            return 0;
+        int repaired = repository.reconcileOpenLoans(customerId);
+        if (repaired > 0)
+            limitCache.clearAfterCommit(customerId);
+        return repaired;
+    }
+
+    private CustomerLoanPage pageOf(List<CustomerLoanView> loans, int size) {
+        if (loans.size() <= size)
+            return new CustomerLoanPage(loans, null);
+        List<CustomerLoanView> page = new ArrayList<>(loans.subList(0, size));
+        return new CustomerLoanPage(page, CustomerLoanCursor.after(page.get(size - 1)));
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.studies.libraryapi.service.impl;
+
+import com.studies.libraryapi.model.entity.ChangeClock;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.LoanArchiveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+@Service
+public class LoanArchiveServiceImpl implements LoanArchiveService {
+
+    private LoanRepository repository;
+
+    private Duration returnedAfter;
+
+    private int batchSize;
+
+    public LoanArchiveServiceImpl(LoanRepository repository,
+                                  @Value("${application.archive.returned-after}") Duration returnedAfter,
+                                  @Value("${application.archive.batch-size}") int batchSize) {
+        this.repository = repository;
+        this.returnedAfter = returnedAfter;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public int archiveReturnedLoans() {
+        return repository.archiveReturnedBefore(ChangeClock.now().minus(returnedAfter), batchSize);
+    }
+
+}
@@ -4,56 +4,248 @@ import com.studies.libraryapi.api.dto.LoanFilterDTO;
 import com.studies.libraryapi.exception.BusinessException;
 import com.studies.libraryapi.model.entity.Book;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.CustomerRepository;
 import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.model.repository.LoanSpecifications;
 import com.studies.libraryapi.service.LoanService;
+import com.studies.libraryapi.service.cache.LoanLimitCache;
+import com.studies.libraryapi.service.checkout.CheckoutResult;
+import com.studies.libraryapi.service.event.LibraryEventBus;
+import com.studies.libraryapi.service.event.LoanCreated;
+import com.studies.libraryapi.service.event.LoanReopened;
+import com.studies.libraryapi.service.event.LoanReturned;
+import com.studies.libraryapi.service.journal.JournalEntry;
+import com.studies.libraryapi.service.journal.MutationJournal;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
     private LoanRepository repository;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    private BookRespository bookRespository;
+
+    private CustomerRepository customerRepository;
+
+    private LibraryEventBus eventBus;
+
+    private MutationJournal journal;
+
+    private LoanLimitCache limitCache;
+
+    private int maxOpenLoans;
+
+    public LoanServiceImpl(LoanRepository repository, BookRespository bookRespository,
+                           CustomerRepository customerRepository, LibraryEventBus eventBus, MutationJournal journal,
+                           LoanLimitCache limitCache,
+                           @Value("${application.loans.max-open-per-customer}") int maxOpenLoans) {
         this.repository = repository;
+        this.bookRespository = bookRespository;
+        this.customerRepository = customerRepository;
+        this.eventBus = eventBus;
+        this.journal = journal;
+        this.limitCache = limitCache;
+        this.maxOpenLoans = maxOpenLoans;
     }
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if (repository.existsByBookAndNotReturned(loan.getBook()))
+        Long bookId = loan.getBook().getId();
+        if (!bookRespository.existsByIdAndAvailableTrue(bookId))
+            throw new BusinessException("Book already loaned");
+        if (loan.getCustomerId() != null && !reserveLoan(loan.getCustomerId()))
+            throw loanLimitReached();
+        Loan savedLoan = repository.save(loan);
+        if (bookRespository.markAsLoaned(bookId, savedLoan.getId()) == 0)
             throw new BusinessException("Book already loaned");
-        return repository.save(loan);
+        afterCheckout(savedLoan);
+        return savedLoan;
+    }
+
+    /*
+     * Checkouts of a batch share one transaction. Book availability is read for the whole
+     * batch at once and only the first checkout of a book may take it; a checkout turned
+     * away after its insert deletes its loan and gives back its slot, so the rest of the
+     * batch still commits.
+     */
+    @Override
+    @Transactional
+    public List<CheckoutResult> saveAll(List<Loan> loans) {
+        Set<Long> available = new HashSet<>(bookRespository.findAvailableIds(loans.stream()
+                .map(loan -> loan.getBook().getId())
+                .collect(Collectors.toSet())));
+        List<CheckoutResult> results = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            Long bookId = loan.getBook().getId();
+            Long customerId = loan.getCustomerId();
+            if (!available.remove(bookId)) {
+                results.add(CheckoutResult.failed(new BusinessException("Book already loaned")));
+                continue;
+            }
+            if (customerId != null && !reserveLoan(customerId)) {
+                results.add(CheckoutResult.failed(loanLimitReached()));
+                continue;
+            }
+            Loan savedLoan = repository.save(loan);
+            if (bookRespository.markAsLoaned(bookId, savedLoan.getId()) == 0) {
+                repository.delete(savedLoan);
+                if (customerId != null)
+                    releaseLoan(customerId);
+                results.add(CheckoutResult.failed(new BusinessException("Book already loaned")));
+                continue;
+            }
+            afterCheckout(savedLoan);
+            results.add(CheckoutResult.of(savedLoan));
+        }
+        return results;
+    }
+
+    private void afterCheckout(Loan savedLoan) {
+        eventBus.publishAfterCommit(LoanCreated.of(savedLoan));
+        journal.recordAfterCommit(JournalEntry.of(JournalEntry.Type.LOAN_CREATED, savedLoan));
+    }
+
+    /*
+     * The open loan count is checked and raised in one conditional update, so concurrent
+     * checkouts cannot both take the last slot; a rolled back checkout gives its slot back.
+     */
+    private boolean reserveLoan(Long customerId) {
+        if (limitCache.isAtLimit(customerId) || customerRepository.reserveLoan(customerId, maxOpenLoans) == 0) {
+            limitCache.markAtLimit(customerId);
+            return false;
+        }
+        return true;
+    }
+
+    private BusinessException loanLimitReached() {
+        return new BusinessException("Customer already has " + maxOpenLoans + " open loans");
+    }
+
+    private void releaseLoan(Long customerId) {
+        customerRepository.releaseLoan(customerId);
+        limitCache.clearAfterCommit(customerId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
+    /*
+     * A loan set back to not returned is open again unless its book still tracks it, and
+     * must take a slot of its customer and count as open like a new checkout.
+     */
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        if (Boolean.TRUE.equals(loan.getReturned()) && loan.getReturnDate() == null)
+            loan.setReturnDate(LocalDateTime.now());
+        boolean reopened = !Boolean.TRUE.equals(loan.getReturned())
+                && !bookRespository.existsByIdAndActiveLoanId(loan.getBook().getId(), loan.getId());
+        if (reopened && loan.getCustomerId() != null && !reserveLoan(loan.getCustomerId()))
+            throw loanLimitReached();
+        Loan updatedLoan = repository.save(loan);
+        Long bookId = loan.getBook().getId();
+        if (Boolean.TRUE.equals(loan.getReturned())) {
+            if (bookRespository.markAsReturned(bookId, loan.getId()) > 0) {
+                eventBus.publishAfterCommit(LoanReturned.of(updatedLoan));
+                if (loan.getCustomerId() != null)
+                    releaseLoan(loan.getCustomerId());
+            }
+        } else {
+            if (bookRespository.markAsLoaned(bookId, loan.getId()) == 0)
+                throw new BusinessException("Book already loaned");
+            if (reopened)
+                eventBus.publishAfterCommit(LoanReopened.of(updatedLoan));
+        }
+        journal.recordAfterCommit(JournalEntry.of(JournalEntry.Type.LOAN_UPDATED, updatedLoan));
+        return updatedLoan;
     }
 
+    /*
+     * The isbn and customer filters match loans with either one, as they did before the
+     * other filters were added, unless matchAny=false asks for both. Every other filter
+     * narrows the result. Loans that are not returned are never archived.
+     */
     @Override
-    public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+    @Transactional(readOnly = true)
+    public Page<LoanView> find(LoanFilterDTO filterDTO, Pageable pageable, FieldSelection fields) {
+        Specification<Loan> specification = specificationOf(filterDTO);
+        if (Boolean.FALSE.equals(filterDTO.getReturned()))
+            return repository.findViews(specification, pageable, fields);
+        return repository.findViewsWithArchived(specification, pageable, fields);
+    }
+
+    private Specification<Loan> specificationOf(LoanFilterDTO filterDTO) {
+        List<Specification<Loan>> either = new ArrayList<>();
+        if (StringUtils.hasText(filterDTO.getIsbn()))
+            either.add(LoanSpecifications.isbn(filterDTO.getIsbn()));
+        if (StringUtils.hasText(filterDTO.getCustomer()))
+            either.add(LoanSpecifications.customer(filterDTO.getCustomer()));
+        Specification<Loan> specification = either.stream()
+                .reduce(Boolean.FALSE.equals(filterDTO.getMatchAny()) ? Specification::and : Specification::or)
+                .orElse(Specification.where(null));
+        if (filterDTO.getCustomerId() != null)
+            specification = specification.and(LoanSpecifications.customerId(filterDTO.getCustomerId()));
+        if (StringUtils.hasText(filterDTO.getEmail()))
+            specification = specification.and(LoanSpecifications.email(filterDTO.getEmail()));
+        if (filterDTO.getReturned() != null)
+            specification = specification.and(LoanSpecifications.returned(filterDTO.getReturned()));
+        if (filterDTO.getLoanDateFrom() != null)
+            specification = specification.and(LoanSpecifications.loanDateFrom(filterDTO.getLoanDateFrom()));
+        if (filterDTO.getLoanDateTo() != null)
+            specification = specification.and(LoanSpecifications.loanDateTo(filterDTO.getLoanDateTo()));
+        return specification;
     }
 
     @Override
-    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+    @Transactional(readOnly = true)
+    public Page<LoanView> getLoansByBook(Book book, Pageable pageable) {
+        Specification<Loan> specification = LoanSpecifications.bookId(book.getId());
+        return repository.findViewsWithArchived(specification, pageable, FieldSelection.ALL);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(loanDays);
+        LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(LOAN_DAYS);
         return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getLateCustomerEmails() {
+        return repository.findLateCustomerEmails(LocalDateTime.now().minusDays(LOAN_DAYS));
+    }
+
+    @Override
+    @Transactional
+    public int reconcileBookAvailability() {
+        int repaired = 0;
+        for (Long bookId : bookRespository.findIdsWithStaleAvailability())
+            repaired += bookRespository.markAsAvailable(bookId);
+        for (Loan loan : repository.findNotReturnedUntrackedByBook())
+            repaired += bookRespository.assignActiveLoan(loan.getBook().getId(), loan.getId());
+        return repaired;
+    }
 }
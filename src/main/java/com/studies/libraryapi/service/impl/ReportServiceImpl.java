@@ -0,0 +1,200 @@
+package com.studies.libraryapi.service.impl;
+
+import com.studies.libraryapi.model.entity.ChangeClock;
+import com.studies.libraryapi.model.entity.CirculationRollup;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.RolledUpLoan;
+import com.studies.libraryapi.model.entity.RollupDimension;
+import com.studies.libraryapi.model.entity.RollupWatermark;
+import com.studies.libraryapi.model.projection.CirculationReportRow;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.CirculationRollupRepository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.model.repository.RolledUpLoanRepository;
+import com.studies.libraryapi.model.repository.RollupWatermarkRepository;
+import com.studies.libraryapi.service.ReportService;
+import com.studies.libraryapi.service.history.HistoryCount;
+import com.studies.libraryapi.service.history.LoanHistoryStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class ReportServiceImpl implements ReportService {
+
+    static final String CIRCULATION_WATERMARK = "circulation";
+
+    private LoanRepository loanRepository;
+
+    private BookRespository bookRespository;
+
+    private CirculationRollupRepository rollupRepository;
+
+    private RolledUpLoanRepository rolledUpLoanRepository;
+
+    private RollupWatermarkRepository watermarkRepository;
+
+    private LoanHistoryStore historyStore;
+
+    private Duration commitLag;
+
+    private int batchSize;
+
+    public ReportServiceImpl(LoanRepository loanRepository, BookRespository bookRespository,
+                             CirculationRollupRepository rollupRepository,
+                             RolledUpLoanRepository rolledUpLoanRepository,
+                             RollupWatermarkRepository watermarkRepository,
+                             LoanHistoryStore historyStore,
+                             @Value("${application.rollup.commit-lag}") Duration commitLag,
+                             @Value("${application.rollup.batch-size}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.bookRespository = bookRespository;
+        this.rollupRepository = rollupRepository;
+        this.rolledUpLoanRepository = rolledUpLoanRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.historyStore = historyStore;
+        this.commitLag = commitLag;
+        this.batchSize = batchSize;
+    }
+
+    /*
+     * Reads the next batch of loans changed after the watermark, in the change feed order, and
+     * adds what was not counted yet. The counters, the per-loan markers and the watermark are
+     * written in one transaction, so a failed batch is simply read again.
+     */
+    @Override
+    @Transactional
+    public int rollUpChangedLoans() {
+        RollupWatermark watermark = watermarkRepository.findById(CIRCULATION_WATERMARK)
+                .orElseGet(() -> RollupWatermark.start(CIRCULATION_WATERMARK));
+        LocalDateTime until = ChangeClock.now().minus(commitLag);
+        List<Loan> loans = loanRepository.findChangedSince(watermark.getLastModified(), watermark.getLastId(),
+                until, PageRequest.of(0, batchSize));
+        if (loans.isEmpty())
+            return 0;
+
+        Map<Long, RolledUpLoan> markers = rolledUpLoanRepository
+                .findAllById(loans.stream().map(Loan::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(RolledUpLoan::getLoanId, Function.identity()));
+        Map<RollupKey, CirculationRollup> rollups = new HashMap<>();
+        for (Loan loan : loans) {
+            RolledUpLoan marker = markers.get(loan.getId());
+            if (marker == null && loan.getLoanDate() != null) {
+                marker = new RolledUpLoan(loan.getId(), false);
+                LocalDate day = loan.getLoanDate().toLocalDate();
+                for (CirculationRollup rollup : rollupsOf(loan, day, rollups))
+                    rollup.setLoans(rollup.getLoans() + 1);
+            }
+            if (marker != null && !marker.isReturned() && Boolean.TRUE.equals(loan.getReturned())) {
+                marker.setReturned(true);
+                LocalDateTime returnDate = loan.getReturnDate();
+                LocalDate day = (returnDate != null ? returnDate : loan.getLoanDate()).toLocalDate();
+                for (CirculationRollup rollup : rollupsOf(loan, day, rollups)) {
+                    rollup.setReturns(rollup.getReturns() + 1);
+                    if (returnDate != null) {
+                        rollup.setTimedReturns(rollup.getTimedReturns() + 1);
+                        rollup.setLoanSeconds(rollup.getLoanSeconds()
+                                + Duration.between(loan.getLoanDate(), returnDate).getSeconds());
+                    }
+                }
+            }
+            if (marker != null)
+                markers.put(loan.getId(), marker);
+        }
+        rollupRepository.saveAll(rollups.values());
+        rolledUpLoanRepository.saveAll(markers.values());
+
+        Loan last = loans.get(loans.size() - 1);
+        watermark.setLastModified(last.getLastModified());
+        watermark.setLastId(last.getId());
+        watermarkRepository.save(watermark);
+        return loans.size();
+    }
+
+    private List<CirculationRollup> rollupsOf(Loan loan, LocalDate day, Map<RollupKey, CirculationRollup> rollups) {
+        String author = loan.getBook() == null ? null : loan.getBook().getAuthor();
+        return List.of(
+                rollupOf(new RollupKey(RollupDimension.TOTAL, "", day), rollups),
+                rollupOf(new RollupKey(RollupDimension.AUTHOR, Objects.toString(author, ""), day), rollups),
+                rollupOf(new RollupKey(RollupDimension.CUSTOMER, Objects.toString(loan.getCustomer(), ""), day), rollups));
+    }
+
+    private CirculationRollup rollupOf(RollupKey key, Map<RollupKey, CirculationRollup> rollups) {
+        return rollups.computeIfAbsent(key, ignored -> rollupRepository
+                .findByDimensionAndDimensionValueAndPeriod(key.dimension, key.value, key.period)
+                .orElseGet(() -> CirculationRollup.empty(key.dimension, key.value, key.period)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CirculationReportRow> findCirculation(RollupDimension dimension, Granularity granularity,
+                                                      LocalDate from, LocalDate to, Pageable pageable) {
+        if (granularity == Granularity.MONTH)
+            return rollupRepository.findMonthly(dimension, from, to, pageable);
+        return rollupRepository.findDaily(dimension, from, to, pageable);
+    }
+
+    /*
+     * The history only knows book ids, so grouping by author looks up the authors of the
+     * books found, once per book.
+     */
+    @Override
+    public List<HistoryCount<String>> findLoanHistory(HistoryGrouping grouping, YearMonth from, YearMonth to) {
+        if (grouping == HistoryGrouping.CUSTOMER)
+            return historyStore.countByCustomer(from, to);
+        List<HistoryCount<Long>> byBook = historyStore.countByBook(from, to);
+        if (grouping == HistoryGrouping.BOOK)
+            return byBook.stream()
+                    .map(count -> new HistoryCount<>(count.getKey().toString(), count.getMonth(),
+                            count.getLoans(), count.getLoanSeconds()))
+                    .collect(Collectors.toList());
+
+        Map<Long, String> authors = new HashMap<>();
+        bookRespository.findAllById(byBook.stream().map(HistoryCount::getKey).collect(Collectors.toSet()))
+                .forEach(book -> authors.put(book.getId(), Objects.toString(book.getAuthor(), "")));
+        Map<AuthorMonth, long[]> byAuthor = new LinkedHashMap<>();
+        for (HistoryCount<Long> count : byBook) {
+            long[] totals = byAuthor.computeIfAbsent(
+                    new AuthorMonth(authors.getOrDefault(count.getKey(), ""), count.getMonth()), ignored -> new long[2]);
+            totals[0] += count.getLoans();
+            totals[1] += count.getLoanSeconds();
+        }
+        return byAuthor.entrySet()
+                .stream()
+                .map(entry -> new HistoryCount<>(entry.getKey().author, entry.getKey().month,
+                        entry.getValue()[0], entry.getValue()[1]))
+                .sorted(Comparator.comparing((HistoryCount<String> count) -> count.getMonth())
+                        .thenComparing(HistoryCount::getKey))
+                .collect(Collectors.toList());
+    }
+
+    @lombok.Value
+    private static class AuthorMonth {
+        String author;
+        YearMonth month;
+    }
+
+    @lombok.Value
+    private static class RollupKey {
+        RollupDimension dimension;
+        String value;
+        LocalDate period;
+    }
+
+}
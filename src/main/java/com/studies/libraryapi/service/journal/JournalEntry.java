@@ -0,0 +1,94 @@
+package com.studies.libraryapi.service.journal;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import lombok.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A committed book or loan mutation, with the state of the record after it. The sequence is
+ * assigned by the journal when the entry is appended.
+ */
+@Value
+public class JournalEntry {
+
+    public enum Type { BOOK_CREATED, BOOK_UPDATED, BOOK_DELETED, LOAN_CREATED, LOAN_UPDATED }
+
+    long sequence;
+    Type type;
+    Long recordId;
+    LocalDateTime recordedAt;
+    Map<String, String> fields;
+
+    public static JournalEntry of(Type type, Book book) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("isbn", book.getIsbn());
+        fields.put("title", book.getTitle());
+        fields.put("author", book.getAuthor());
+        return new JournalEntry(0, type, book.getId(), LocalDateTime.now(), Collections.unmodifiableMap(fields));
+    }
+
+    public static JournalEntry of(Type type, Loan loan) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("bookId", loan.getBook() == null ? null : Objects.toString(loan.getBook().getId(), null));
+        fields.put("customer", loan.getCustomer());
+        fields.put("customerEmail", loan.getCustomerEmail());
+        fields.put("customerId", Objects.toString(loan.getCustomerId(), null));
+        fields.put("loanDate", Objects.toString(loan.getLoanDate(), null));
+        fields.put("returned", Objects.toString(loan.getReturned(), null));
+        fields.put("returnDate", Objects.toString(loan.getReturnDate(), null));
+        return new JournalEntry(0, type, loan.getId(), LocalDateTime.now(), Collections.unmodifiableMap(fields));
+    }
+
+    JournalEntry withSequence(long sequence) {
+        return new JournalEntry(sequence, type, recordId, recordedAt, fields);
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(sequence);
+            out.writeByte(type.ordinal());
+            out.writeLong(recordId == null ? Long.MIN_VALUE : recordId);
+            out.writeLong(recordedAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(recordedAt.getNano());
+            out.writeShort(fields.size());
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                out.writeUTF(field.getKey());
+                out.writeBoolean(field.getValue() != null);
+                if (field.getValue() != null)
+                    out.writeUTF(field.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalEntry decode(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        Type type = Type.values()[in.readByte()];
+        long recordId = in.readLong();
+        LocalDateTime recordedAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        int size = in.readShort();
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            fields.put(key, in.readBoolean() ? in.readUTF() : null);
+        }
+        return new JournalEntry(sequence, type, recordId == Long.MIN_VALUE ? null : recordId, recordedAt,
+                Collections.unmodifiableMap(fields));
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.studies.libraryapi.service.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped journal file. Each record is its length, a CRC32 of its body and the
+ * body; a zero length marks the end. Opening a segment walks its records and stops at the
+ * first torn or corrupt one, which later appends overwrite.
+ */
+class JournalSegment {
+
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    private final Path file;
+    private final long firstSequence;
+    private final MappedByteBuffer buffer;
+    private volatile int end;
+    private long lastSequence;
+
+    JournalSegment(Path file, long firstSequence, int size) throws IOException {
+        this.file = file;
+        this.firstSequence = firstSequence;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        this.lastSequence = firstSequence - 1;
+        recover();
+    }
+
+    private void recover() throws IOException {
+        int position = 0;
+        while (position + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER + length > buffer.capacity())
+                break;
+            byte[] body = body(position, length);
+            if (crcOf(body) != buffer.getInt(position + Integer.BYTES))
+                break;
+            lastSequence = JournalEntry.decode(new DataInputStream(new ByteArrayInputStream(body))).getSequence();
+            position += RECORD_HEADER + length;
+        }
+        end = position;
+        terminate();
+    }
+
+    /**
+     * Returns false when the record does not fit, so the journal rolls to a new segment.
+     */
+    boolean append(long sequence, byte[] body) {
+        int position = end;
+        if (position + RECORD_HEADER + body.length > buffer.capacity())
+            return false;
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + RECORD_HEADER);
+        target.put(body);
+        buffer.putInt(position + Integer.BYTES, crcOf(body));
+        buffer.putInt(position, body.length);
+        lastSequence = sequence;
+        end = position + RECORD_HEADER + body.length;
+        terminate();
+        return true;
+    }
+
+    int replay(long fromSequence, Consumer<JournalEntry> consumer) throws IOException {
+        int limit = end;
+        int replayed = 0;
+        for (int position = 0; position < limit; ) {
+            int length = buffer.getInt(position);
+            JournalEntry entry = JournalEntry.decode(new DataInputStream(new ByteArrayInputStream(body(position, length))));
+            if (entry.getSequence() >= fromSequence) {
+                consumer.accept(entry);
+                replayed++;
+            }
+            position += RECORD_HEADER + length;
+        }
+        return replayed;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    boolean isEmpty() {
+        return end == 0;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    private void terminate() {
+        if (end + Integer.BYTES <= buffer.capacity())
+            buffer.putInt(end, 0);
+    }
+
+    private byte[] body(int position, int length) {
+        byte[] body = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position + RECORD_HEADER);
+        source.get(body);
+        return body;
+    }
+
+    private static int crcOf(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.studies.libraryapi.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of committed book and loan mutations, for audit and for rebuilding
+ * derived state by replay. Entries go into memory-mapped segment files named after their
+ * first sequence; a full segment is forced to disk and a new one started.
+ *
+ * Durability uses group commit: a writer waiting for its entry forces the segment only if
+ * no other force covered it yet, so concurrent writers share one fsync.
+ */
+@Component
+@Slf4j
+public class MutationJournal implements Closeable {
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<JournalSegment> segments = new ArrayList<>();
+    private final Object syncLock = new Object();
+    private JournalSegment current;
+    private long lastSequence;
+    private volatile long durableSequence;
+
+    @Autowired
+    public MutationJournal(@Value("${application.journal.directory}") String directory,
+                           @Value("${application.journal.segment-size}") DataSize segmentSize) {
+        this(Paths.get(directory), (int) segmentSize.toBytes());
+    }
+
+    MutationJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files)
+                segments.add(new JournalSegment(file, firstSequenceOf(file), segmentSize));
+            if (segments.isEmpty())
+                segments.add(new JournalSegment(fileFor(1), 1, segmentSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the journal at " + directory, e);
+        }
+        this.current = segments.get(segments.size() - 1);
+        this.lastSequence = current.getLastSequence();
+        this.durableSequence = lastSequence;
+        log.info("journal at {} opened at sequence {}", directory, lastSequence);
+    }
+
+    /**
+     * Appends once the current transaction commits and waits until the entry is on disk, or
+     * does so immediately outside a transaction. A failure is logged, as the mutation is
+     * already committed.
+     */
+    public void recordAfterCommit(JournalEntry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(entry);
+            }
+        });
+    }
+
+    private void record(JournalEntry entry) {
+        try {
+            awaitDurable(append(entry));
+        } catch (RuntimeException e) {
+            log.error("could not journal {} of record {}", entry.getType(), entry.getRecordId(), e);
+        }
+    }
+
+    public synchronized long append(JournalEntry entry) {
+        long sequence = lastSequence + 1;
+        byte[] body = entry.withSequence(sequence).encode();
+        if (!current.append(sequence, body)) {
+            if (current.isEmpty())
+                throw new IllegalArgumentException("Journal entry larger than a segment");
+            roll(sequence);
+            if (!current.append(sequence, body))
+                throw new IllegalArgumentException("Journal entry larger than a segment");
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence)
+            return;
+        synchronized (syncLock) {
+            if (durableSequence >= sequence)
+                return;
+            long target;
+            JournalSegment segment;
+            synchronized (this) {
+                target = lastSequence;
+                segment = current;
+            }
+            segment.force();
+            durableSequence = target;
+        }
+    }
+
+    /**
+     * Hands every entry from the given sequence on to the consumer, in order, and returns
+     * how many there were. Entries appended during the replay may or may not be included.
+     */
+    public long replay(long fromSequence, Consumer<JournalEntry> consumer) {
+        List<JournalSegment> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(segments);
+        }
+        long replayed = 0;
+        try {
+            for (int i = 0; i < snapshot.size(); i++) {
+                boolean hasLater = i + 1 < snapshot.size();
+                if (hasLater && snapshot.get(i + 1).getFirstSequence() <= fromSequence)
+                    continue;
+                replayed += snapshot.get(i).replay(fromSequence, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay the journal at " + directory, e);
+        }
+        return replayed;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    @Override
+    public synchronized void close() {
+        current.force();
+        durableSequence = lastSequence;
+    }
+
+    /*
+     * Called with the journal locked; the full segment is forced first so a durable
+     * sequence never skips over a segment that is not on disk.
+     */
+    private void roll(long firstSequence) {
+        current.force();
+        try {
+            current = new JournalSegment(fileFor(firstSequence), firstSequence, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start a journal segment at " + directory, e);
+        }
+        segments.add(current);
+    }
+
+    private Path fileFor(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+    }
+
+    private static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.studies.libraryapi.service.stats;
+
+import lombok.Value;
+
+@Value
+public class BookLoanCount {
+
+    Long bookId;
+    long loans;
+
+}
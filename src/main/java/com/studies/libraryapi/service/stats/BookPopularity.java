@@ -0,0 +1,61 @@
+package com.studies.libraryapi.service.stats;
+
+import com.studies.libraryapi.service.event.LibraryEvent;
+import com.studies.libraryapi.service.event.LibraryEventListener;
+import com.studies.libraryapi.service.event.LoanCreated;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most borrowed books of the last day and week, counted from committed checkouts instead of
+ * grouping the loan table. Counts are estimates that may only overshoot, and start empty when
+ * the application starts.
+ */
+@Component
+public class BookPopularity implements LibraryEventListener {
+
+    private final Map<TrendingWindow, SlidingHeavyHitters> windows = new EnumMap<>(TrendingWindow.class);
+    private final int capacity;
+    private final Clock clock;
+
+    @Autowired
+    public BookPopularity(@Value("${application.stats.trending.capacity}") int capacity,
+                          @Value("${application.stats.trending.sketch-width}") int width,
+                          @Value("${application.stats.trending.sketch-depth}") int depth) {
+        this(capacity, width, depth, Clock.systemDefaultZone());
+    }
+
+    BookPopularity(int capacity, int width, int depth, Clock clock) {
+        for (TrendingWindow window : TrendingWindow.values())
+            windows.put(window, new SlidingHeavyHitters(window, capacity, width, depth));
+        this.capacity = capacity;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onEvents(List<LibraryEvent> events) {
+        for (LibraryEvent event : events) {
+            if (!(event instanceof LoanCreated))
+                continue;
+            LoanCreated loan = (LoanCreated) event;
+            for (SlidingHeavyHitters window : windows.values())
+                window.record(loan.getBookId(), loan.getOccurredAt());
+        }
+    }
+
+    public List<BookLoanCount> trending(TrendingWindow window, int size) {
+        return windows.get(window).top(size, LocalDateTime.now(clock));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.studies.libraryapi.service.stats;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class CirculationSnapshot {
+
+    long openLoans;
+    long lateLoans;
+    long checkoutsToday;
+    LocalDateTime asOf;
+    LocalDateTime reconciledAt;
+
+}
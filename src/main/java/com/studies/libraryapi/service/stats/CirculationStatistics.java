@@ -0,0 +1,127 @@
+package com.studies.libraryapi.service.stats;
+
+import com.studies.libraryapi.model.projection.OpenLoanCount;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.LoanService;
+import com.studies.libraryapi.service.event.LibraryEvent;
+import com.studies.libraryapi.service.event.LibraryEventListener;
+import com.studies.libraryapi.service.event.LoanCreated;
+import com.studies.libraryapi.service.event.LoanReopened;
+import com.studies.libraryapi.service.event.LoanReturned;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circulation counters kept up to date from loan events, so reading them never touches the
+ * loan table. Open loans are counted per hour of their loan date, which makes the late count
+ * a sum over the hours older than the loan period, accurate to the hour.
+ *
+ * Events can be dropped under load and a reconcile can race with events still in flight, so
+ * the counters are rebuilt from the database at startup and then periodically.
+ */
+@Component
+@Slf4j
+public class CirculationStatistics implements LibraryEventListener {
+
+    private final LoanRepository loanRepository;
+    private final Clock clock;
+
+    private volatile ConcurrentNavigableMap<LocalDateTime, LongAdder> openLoansByHour = new ConcurrentSkipListMap<>();
+    private volatile ConcurrentMap<LocalDate, LongAdder> checkoutsByDay = new ConcurrentHashMap<>();
+    private volatile LocalDateTime reconciledAt;
+
+    @Autowired
+    public CirculationStatistics(LoanRepository loanRepository) {
+        this(loanRepository, Clock.systemDefaultZone());
+    }
+
+    CirculationStatistics(LoanRepository loanRepository, Clock clock) {
+        this.loanRepository = loanRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onEvents(List<LibraryEvent> events) {
+        for (LibraryEvent event : events) {
+            if (event instanceof LoanCreated) {
+                LocalDateTime loanDate = ((LoanCreated) event).getLoanDate();
+                if (loanDate == null)
+                    continue;
+                counter(openLoansByHour, loanDate.truncatedTo(ChronoUnit.HOURS)).increment();
+                counter(checkoutsByDay, loanDate.toLocalDate()).increment();
+            } else if (event instanceof LoanReturned) {
+                LocalDateTime loanDate = ((LoanReturned) event).getLoanDate();
+                if (loanDate != null)
+                    counter(openLoansByHour, loanDate.truncatedTo(ChronoUnit.HOURS)).decrement();
+            } else if (event instanceof LoanReopened) {
+                LocalDateTime loanDate = ((LoanReopened) event).getLoanDate();
+                if (loanDate != null)
+                    counter(openLoansByHour, loanDate.truncatedTo(ChronoUnit.HOURS)).increment();
+            }
+        }
+    }
+
+    public CirculationSnapshot snapshot() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime lateBefore = now.minusDays(LoanService.LOAN_DAYS).truncatedTo(ChronoUnit.HOURS);
+        ConcurrentNavigableMap<LocalDateTime, LongAdder> openLoans = openLoansByHour;
+        LongAdder today = checkoutsByDay.get(now.toLocalDate());
+        return new CirculationSnapshot(
+                sum(openLoans),
+                sum(openLoans.headMap(lateBefore)),
+                today == null ? 0 : today.sum(),
+                now,
+                reconciledAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${application.stats.reconcile-interval}",
+            fixedDelayString = "${application.stats.reconcile-interval}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        ConcurrentNavigableMap<LocalDateTime, LongAdder> openLoans = new ConcurrentSkipListMap<>();
+        for (OpenLoanCount count : loanRepository.countOpenLoansByHour())
+            counter(openLoans, count.getStartOfHour()).add(count.getCount());
+
+        LocalDate today = now.toLocalDate();
+        ConcurrentMap<LocalDate, LongAdder> checkouts = new ConcurrentHashMap<>();
+        counter(checkouts, today).add(loanRepository.countByLoanDateGreaterThanEqual(today.atStartOfDay()));
+
+        openLoansByHour = openLoans;
+        checkoutsByDay = checkouts;
+        reconciledAt = now;
+        log.debug("circulation statistics reconciled: {}", snapshot());
+    }
+
+    private static <K> LongAdder counter(Map<K, LongAdder> counters, K key) {
+        return counters.computeIfAbsent(key, ignored -> new LongAdder());
+    }
+
+    private static long sum(Map<?, LongAdder> counters) {
+        long sum = 0;
+        for (LongAdder counter : counters.values())
+            sum += counter.sum();
+        return Math.max(0, sum);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.studies.libraryapi.service.stats;
+
+import java.util.Arrays;
+
+/**
+ * Approximate counter for a stream of long keys in fixed memory. An estimate is never below
+ * the true count and, with probability {@code 1 - 2^-depth}, exceeds it by at most
+ * {@code 2 / width} of the total added. Not thread safe.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final long[][] counts;
+    private final long[] seeds;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1)
+            throw new IllegalArgumentException("Width and depth must be positive");
+        this.width = width;
+        this.counts = new long[depth][width];
+        this.seeds = new long[depth];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int row = 0; row < depth; row++)
+            seeds[row] = mix(seed += 0x9E3779B97F4A7C15L);
+    }
+
+    public void add(long key, long count) {
+        for (int row = 0; row < counts.length; row++)
+            counts[row][index(key, row)] += count;
+        total += count;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++)
+            estimate = Math.min(estimate, counts[row][index(key, row)]);
+        return estimate;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void clear() {
+        for (long[] row : counts)
+            Arrays.fill(row, 0);
+        total = 0;
+    }
+
+    private int index(long key, int row) {
+        return (int) ((mix(key ^ seeds[row]) >>> 1) % width);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.studies.libraryapi.service.stats;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Most frequent keys of a sliding time window. Each slot of the window has its own count-min
+ * sketch, so an expired slot is cleared without touching the others, and the estimate of a key
+ * is the sum over the live slots.
+ *
+ * Only the keys with the highest estimates are remembered, in a set ordered by estimate that
+ * evicts its lowest key when a higher one arrives, so memory and read time depend on the
+ * capacity only.
+ */
+class SlidingHeavyHitters {
+
+    private static final Comparator<BookLoanCount> BY_LOANS = Comparator
+            .comparingLong(BookLoanCount::getLoans)
+            .thenComparing(BookLoanCount::getBookId);
+
+    private final long slotSeconds;
+    private final CountMinSketch[] slots;
+    private final int capacity;
+    private final Map<Long, BookLoanCount> candidates = new HashMap<>();
+    private final TreeSet<BookLoanCount> ranking = new TreeSet<>(BY_LOANS);
+    private long currentSlot = Long.MIN_VALUE;
+
+    SlidingHeavyHitters(TrendingWindow window, int capacity, int width, int depth) {
+        this.slotSeconds = window.getSlotLength().getSeconds();
+        this.slots = new CountMinSketch[window.getSlots()];
+        for (int i = 0; i < slots.length; i++)
+            slots[i] = new CountMinSketch(width, depth);
+        this.capacity = capacity;
+    }
+
+    synchronized void record(long key, LocalDateTime at) {
+        long slot = slotOf(at);
+        if (currentSlot != Long.MIN_VALUE && slot <= currentSlot - slots.length)
+            return;
+        advanceTo(slot);
+        slots[index(slot)].add(key, 1);
+        offer(key, estimate(key));
+    }
+
+    synchronized List<BookLoanCount> top(int size, LocalDateTime now) {
+        advanceTo(slotOf(now));
+        List<BookLoanCount> top = new ArrayList<>(Math.min(size, ranking.size()));
+        Iterator<BookLoanCount> highest = ranking.descendingIterator();
+        while (top.size() < size && highest.hasNext())
+            top.add(highest.next());
+        return top;
+    }
+
+    synchronized long estimate(long key) {
+        long estimate = 0;
+        for (CountMinSketch slot : slots)
+            estimate += slot.estimate(key);
+        return estimate;
+    }
+
+    private void advanceTo(long slot) {
+        if (slot <= currentSlot)
+            return;
+        long expired = currentSlot == Long.MIN_VALUE ? slots.length : Math.min(slot - currentSlot, slots.length);
+        for (long i = 0; i < expired; i++)
+            slots[index(slot - i)].clear();
+        currentSlot = slot;
+        for (Long key : new ArrayList<>(candidates.keySet()))
+            offer(key, estimate(key));
+    }
+
+    private void offer(long key, long estimate) {
+        BookLoanCount previous = candidates.remove(key);
+        if (previous != null)
+            ranking.remove(previous);
+        if (estimate == 0)
+            return;
+        if (candidates.size() >= capacity) {
+            if (BY_LOANS.compare(ranking.first(), new BookLoanCount(key, estimate)) >= 0)
+                return;
+            candidates.remove(ranking.pollFirst().getBookId());
+        }
+        BookLoanCount count = new BookLoanCount(key, estimate);
+        candidates.put(key, count);
+        ranking.add(count);
+    }
+
+    private int index(long slot) {
+        return (int) Math.floorMod(slot, (long) slots.length);
+    }
+
+    private long slotOf(LocalDateTime at) {
+        return Math.floorDiv(at.toEpochSecond(ZoneOffset.UTC), slotSeconds);
+    }
+
+}
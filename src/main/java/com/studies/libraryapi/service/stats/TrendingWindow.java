@@ -0,0 +1,22 @@
+package com.studies.libraryapi.service.stats;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Sliding windows of the trending tracker. A window is split into slots that expire one at a
+ * time, so the counts decay a slot at a time instead of resetting all at once.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TrendingWindow {
+
+    DAY(Duration.ofHours(1), 24),
+    WEEK(Duration.ofDays(1), 7);
+
+    private final Duration slotLength;
+    private final int slots;
+
+}
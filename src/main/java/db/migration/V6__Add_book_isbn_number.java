@@ -0,0 +1,137 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores each book's ISBN as its canonical ISBN-13 number under a unique index, replacing
+ * the index on the isbn text. Values that are not valid ISBNs keep a null number; when two
+ * books share a number only the oldest gets it and the others are logged.
+ *
+ * The normalisation is a frozen copy of IsbnCodec as of this version, so later changes to
+ * application code cannot change what an already applied migration would have written.
+ */
+@Slf4j
+public class V6__Add_book_isbn_number extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final long NO_NUMBER = -1;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table book add column isbn_number bigint");
+        }
+
+        Map<Long, Long> owners = new HashMap<>();
+        try (Statement select = connection.createStatement();
+             ResultSet books = select.executeQuery("select id, isbn from book order by id");
+             PreparedStatement update = connection.prepareStatement("update book set isbn_number = ? where id = ?")) {
+            int pending = 0;
+            while (books.next()) {
+                long id = books.getLong("id");
+                String isbn = books.getString("isbn");
+                long number = isbnNumber(isbn);
+                if (number == NO_NUMBER)
+                    continue;
+                Long owner = owners.get(number);
+                if (owner != null) {
+                    log.warn("book {} keeps no isbn number: isbn {} is also book {}", id, isbn, owner);
+                    continue;
+                }
+                owners.put(number, id);
+                update.setLong(1, number);
+                update.setLong(2, id);
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0)
+                update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop index idx_book_isbn");
+            statement.execute("create unique index idx_book_isbn_number on book (isbn_number)");
+        }
+    }
+
+    /*
+     * Hyphens and spaces are ignored and an ISBN-10 becomes its ISBN-13 number; anything
+     * that is not a valid ISBN-10 or ISBN-13 has no number.
+     */
+    private static long isbnNumber(String isbn) {
+        if (isbn == null)
+            return NO_NUMBER;
+        StringBuilder digits = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ')
+                continue;
+            if (digits.length() == 13)
+                return NO_NUMBER;
+            digits.append(c);
+        }
+        if (digits.length() == 10)
+            return isbn10Number(digits);
+        if (digits.length() == 13)
+            return isbn13Number(digits);
+        return NO_NUMBER;
+    }
+
+    private static long isbn10Number(CharSequence digits) {
+        long body = 0;
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = digitAt(digits, i);
+            if (digit < 0)
+                return NO_NUMBER;
+            body = body * 10 + digit;
+            sum += (10 - i) * digit;
+        }
+        char last = digits.charAt(9);
+        int check = last == 'X' || last == 'x' ? 10 : digitAt(digits, 9);
+        if (check < 0 || (sum + check) % 11 != 0)
+            return NO_NUMBER;
+        long prefixed = 978_000_000_000L + body;
+        return prefixed * 10 + isbn13CheckDigit(prefixed);
+    }
+
+    private static long isbn13Number(CharSequence digits) {
+        long value = 0;
+        for (int i = 0; i < 13; i++) {
+            int digit = digitAt(digits, i);
+            if (digit < 0)
+                return NO_NUMBER;
+            value = value * 10 + digit;
+        }
+        long prefix = value / 10_000_000_000L;
+        if (prefix != 978 && prefix != 979 || isbn13CheckDigit(value / 10) != value % 10)
+            return NO_NUMBER;
+        return value;
+    }
+
+    private static int isbn13CheckDigit(long twelveDigits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++, twelveDigits /= 10)
+            sum += (int) (twelveDigits % 10) * (i % 2 == 0 ? 3 : 1);
+        return (10 - sum % 10) % 10;
+    }
+
+    private static int digitAt(CharSequence digits, int index) {
+        char c = digits.charAt(index);
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+}
@@ -0,0 +1,10 @@
+update loan set return_date = last_modified where returned = true and return_date is null;
+
+create index idx_loan_return_date on loan (return_date, id);
+
+create view loan_record as
+select id, customer, customer_email, customer_id, book_id, loan_date, returned, return_date, last_modified
+from loan
+union all
+select id, customer, customer_email, customer_id, book_id, loan_date, returned, return_date, last_modified
+from loan_archive;
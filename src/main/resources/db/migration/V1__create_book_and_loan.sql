@@ -0,0 +1,18 @@
+create table book (
+    id bigint auto_increment primary key,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    available boolean default true not null,
+    active_loan_id bigint
+);
+
+create table loan (
+    id bigint auto_increment primary key,
+    customer varchar(100),
+    customer_email varchar(255),
+    book_id bigint,
+    loan_date timestamp,
+    returned boolean,
+    constraint fk_loan_book foreign key (book_id) references book (id)
+);
@@ -0,0 +1,7 @@
+create unique index idx_book_isbn on book (isbn);
+create index idx_book_available on book (available);
+
+create index idx_loan_book_returned on loan (book_id, returned);
+create index idx_loan_customer on loan (customer);
+create index idx_loan_customer_email on loan (customer_email);
+create index idx_loan_loan_date on loan (loan_date);
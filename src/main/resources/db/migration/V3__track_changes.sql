@@ -0,0 +1,19 @@
+alter table book add column last_modified timestamp;
+update book set last_modified = current_timestamp;
+alter table book alter column last_modified set not null;
+
+alter table loan add column last_modified timestamp;
+update loan set last_modified = current_timestamp;
+alter table loan alter column last_modified set not null;
+
+create index idx_book_last_modified on book (last_modified, id);
+create index idx_loan_last_modified on loan (last_modified, id);
+
+create table tombstone (
+    id bigint auto_increment primary key,
+    record_type varchar(20) not null,
+    record_id bigint not null,
+    deleted_at timestamp not null
+);
+
+create index idx_tombstone_deleted_at on tombstone (deleted_at, id);
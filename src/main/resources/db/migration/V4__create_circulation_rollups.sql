@@ -0,0 +1,24 @@
+alter table loan add column return_date timestamp;
+
+create table circulation_rollup (
+    id bigint auto_increment primary key,
+    dimension varchar(20) not null,
+    dimension_value varchar(255) not null,
+    period date not null,
+    loans bigint not null,
+    returns bigint not null,
+    timed_returns bigint not null,
+    loan_seconds bigint not null,
+    constraint uk_circulation_rollup unique (dimension, dimension_value, period)
+);
+
+create table rolled_up_loan (
+    loan_id bigint primary key,
+    returned boolean not null
+);
+
+create table rollup_watermark (
+    name varchar(50) primary key,
+    last_modified timestamp not null,
+    last_id bigint not null
+);
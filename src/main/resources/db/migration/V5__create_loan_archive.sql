@@ -0,0 +1,16 @@
+create table loan_archive (
+    id bigint primary key,
+    customer varchar(100),
+    customer_email varchar(255),
+    book_id bigint,
+    loan_date timestamp,
+    returned boolean default true not null,
+    return_date timestamp,
+    last_modified timestamp not null,
+    archived_at timestamp not null
+);
+
+create index idx_loan_archive_book on loan_archive (book_id);
+create index idx_loan_archive_customer on loan_archive (customer);
+create index idx_loan_archive_customer_email on loan_archive (customer_email);
+create index idx_loan_archive_loan_date on loan_archive (loan_date);
@@ -0,0 +1,24 @@
+create table customer (
+    id bigint auto_increment primary key,
+    name varchar(100),
+    email varchar(255) not null
+);
+
+create unique index idx_customer_email on customer (email);
+
+insert into customer (name, email)
+select min(customer), lower(trim(customer_email))
+from ( select customer, customer_email from loan
+       union all
+       select customer, customer_email from loan_archive ) loans
+where trim(customer_email) <> ''
+group by lower(trim(customer_email));
+
+alter table loan add column customer_id bigint;
+alter table loan add constraint fk_loan_customer foreign key (customer_id) references customer (id);
+update loan set customer_id = ( select c.id from customer c where c.email = lower(trim(loan.customer_email)) );
+create index idx_loan_customer_id on loan (customer_id);
+
+alter table loan_archive add column customer_id bigint;
+update loan_archive set customer_id = ( select c.id from customer c where c.email = lower(trim(loan_archive.customer_email)) );
+create index idx_loan_archive_customer_id on loan_archive (customer_id);
@@ -0,0 +1,5 @@
+alter table customer add column open_loans int default 0 not null;
+alter table customer add constraint ck_customer_open_loans check (open_loans >= 0);
+
+update customer c set open_loans = ( select count(*) from loan l where l.customer_id = c.id
+                                     and ( l.returned is null or l.returned = false ) );
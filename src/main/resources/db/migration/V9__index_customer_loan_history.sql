@@ -0,0 +1,5 @@
+create index idx_loan_customer_loan_date on loan (customer_id, loan_date desc, id desc);
+drop index idx_loan_customer_id;
+
+create index idx_loan_archive_customer_loan_date on loan_archive (customer_id, loan_date desc, id desc);
+drop index idx_loan_archive_customer_id;
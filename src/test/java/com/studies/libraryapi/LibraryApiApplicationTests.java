@@ -1,11 +1,24 @@
 package com.studies.libraryapi;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class LibraryApiApplicationTests {
 
+	@TempDir
+	static Path dataDirectory;
+
+	@DynamicPropertySource
+	static void dataDirectory(DynamicPropertyRegistry registry) {
+		registry.add("application.data-directory", dataDirectory::toString);
+	}
+
 	@Test
 	void contextLoads() {
 	}
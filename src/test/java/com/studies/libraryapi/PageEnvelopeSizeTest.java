@@ -0,0 +1,79 @@
+package com.studies.libraryapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studies.libraryapi.api.dto.BookDTO;
+import com.studies.libraryapi.api.dto.PageDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PageEnvelopeSizeTest {
+
+    private static final int ROUNDS = 2_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Lean page envelope must be smaller than the full page")
+    public void leanEnvelopeMustBeSmallerTest() throws Exception {
+
+        //given
+        Page<BookDTO> page = createAPage(20);
+        PageDTO<BookDTO> lean = PageDTO.of(page, true);
+
+        //when
+        int fullBytes = mapper.writeValueAsBytes(page).length;
+        int leanBytes = mapper.writeValueAsBytes(lean).length;
+        long fullNanos = nanosPerWrite(page);
+        long leanNanos = nanosPerWrite(lean);
+
+        //then
+        assertThat(leanBytes)
+                .as("bytes per response: full %d (%d ns), lean %d (%d ns)", fullBytes, fullNanos, leanBytes, leanNanos)
+                .isLessThan(fullBytes);
+
+    }
+
+    @Test
+    @DisplayName("Must only point to a next page when there is one")
+    public void mustPointToNextPageTest() {
+
+        //given
+        Page<BookDTO> first = new PageImpl<>(createAPage(1).getContent(), PageRequest.of(0, 1), 2);
+        Page<BookDTO> last = new PageImpl<>(createAPage(1).getContent(), PageRequest.of(1, 1), 2);
+
+        //when
+        PageDTO<BookDTO> firstDTO = PageDTO.of(first, false);
+        PageDTO<BookDTO> lastDTO = PageDTO.of(last, false);
+
+        //then
+        assertThat(firstDTO.getNext()).isEqualTo(1);
+        assertThat(firstDTO.getTotal()).isNull();
+        assertThat(lastDTO.getNext()).isNull();
+
+    }
+
+    private long nanosPerWrite(Object value) throws Exception {
+        for (int i = 0; i < ROUNDS; i++)
+            mapper.writeValueAsBytes(value);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            mapper.writeValueAsBytes(value);
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    private Page<BookDTO> createAPage(int size) {
+        List<BookDTO> books = new ArrayList<>();
+        for (long id = 1; id <= size; id++)
+            books.add(BookDTO.builder().id(id).title("Book Title").author("Book Author").isbn("123").available(true).build());
+        return new PageImpl<>(books, PageRequest.of(0, size), 100);
+    }
+
+}
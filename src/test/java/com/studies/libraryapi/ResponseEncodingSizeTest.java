@@ -0,0 +1,104 @@
+package com.studies.libraryapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.studies.libraryapi.api.dto.BookDTO;
+import com.studies.libraryapi.api.dto.LoanDTO;
+import com.studies.libraryapi.api.dto.PageDTO;
+import com.studies.libraryapi.api.protobuf.ProtobufEncoding;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseEncodingSizeTest {
+
+    private static final int ROUNDS = 500;
+
+    @Test
+    @DisplayName("Binary encodings must be smaller than JSON for a page of loans")
+    public void binaryEncodingsMustBeSmallerTest() throws Exception {
+
+        //given
+        PageDTO<LoanDTO> page = PageDTO.of(createAPage(100), true);
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+        //when
+        int jsonBytes = json.writeValueAsBytes(page).length;
+        int cborBytes = cbor.writeValueAsBytes(page).length;
+        int smileBytes = smile.writeValueAsBytes(page).length;
+        int protobufBytes = ProtobufEncoding.encode(page).length;
+        String report = String.format("bytes (ns) per page: json %d (%d), cbor %d (%d), smile %d (%d), protobuf %d (%d)",
+                jsonBytes, nanosPerWrite(page, value -> write(json, value)),
+                cborBytes, nanosPerWrite(page, value -> write(cbor, value)),
+                smileBytes, nanosPerWrite(page, value -> write(smile, value)),
+                protobufBytes, nanosPerWrite(page, ProtobufEncoding::encode));
+
+        //then
+        assertThat(cborBytes).as(report).isLessThan(jsonBytes);
+        assertThat(smileBytes).as(report).isLessThan(jsonBytes);
+        assertThat(protobufBytes).as(report).isLessThan(smileBytes);
+
+    }
+
+    @Test
+    @DisplayName("Must encode a loan page following the protobuf schema")
+    public void mustEncodeLoanPageTest() throws Exception {
+
+        //given
+        PageDTO<LoanDTO> page = PageDTO.of(createAPage(1), true);
+
+        //when
+        CodedInputStream input = CodedInputStream.newInstance(ProtobufEncoding.encode(page));
+
+        //then
+        assertThat(input.readTag()).isEqualTo(1 << 3 | 2);
+        CodedInputStream loan = CodedInputStream.newInstance(input.readByteArray());
+        assertThat(loan.readTag()).isEqualTo(1 << 3);
+        assertThat(loan.readInt64()).isEqualTo(1L);
+        assertThat(input.readTag()).isEqualTo(2 << 3);
+        assertThat(input.readInt32()).isEqualTo(1);
+        assertThat(input.readTag()).isEqualTo(3 << 3);
+        assertThat(input.readInt64()).isEqualTo(1000L);
+        assertThat(input.isAtEnd()).isTrue();
+
+    }
+
+    private static byte[] write(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long nanosPerWrite(Object value, Function<Object, byte[]> encoder) {
+        for (int i = 0; i < ROUNDS; i++)
+            encoder.apply(value);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            encoder.apply(value);
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    private Page<LoanDTO> createAPage(int size) {
+        List<LoanDTO> loans = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            BookDTO book = BookDTO.builder().id(id).title("Book Title").author("Book Author").isbn("123").available(false).build();
+            loans.add(LoanDTO.builder().id(id).isbn("123").customer("Someone").email("someone@email.com").book(book).build());
+        }
+        return new PageImpl<>(loans, PageRequest.of(0, size), 1000);
+    }
+
+}
@@ -1,9 +1,12 @@
 package com.studies.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studies.libraryapi.PageEnvelopeAdvice;
 import com.studies.libraryapi.api.dto.BookDTO;
 import com.studies.libraryapi.exception.BusinessException;
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
 import com.studies.libraryapi.service.BookService;
 import com.studies.libraryapi.service.LoanService;
 import org.junit.jupiter.api.DisplayName;
@@ -31,6 +34,7 @@ import java.util.Optional;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -59,7 +63,7 @@ public class BookControllerTest {
         BookDTO book = BookDTO.builder()
                 .title("Book Title")
                 .author("Book Author")
-                .isbn("123456")
+                .isbn("978-0-306-40615-7")
                 .build();
 
         Book savedBook = createABook();
@@ -83,7 +87,7 @@ public class BookControllerTest {
                 .andExpect( jsonPath("id").isNotEmpty() )
                 .andExpect( jsonPath("title").value("Book Title") )
                 .andExpect( jsonPath("author").value("Book Author") )
-                .andExpect( jsonPath("isbn").value("123456") );
+                .andExpect( jsonPath("isbn").value("978-0-306-40615-7") );
 
     }
 
@@ -108,6 +112,36 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Must throw an error when the isbn is not a valid isbn")
+    public void mustNotCreateBookWithInvalidIsbnTest() throws Exception {
+
+        //given
+        BookDTO book = BookDTO.builder()
+                .title("Book Title")
+                .author("Book Author")
+                .isbn("978-0-306-40615-8")
+                .build();
+
+        String json = new ObjectMapper().writeValueAsString(book);
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors", hasSize(1)))
+                .andExpect( jsonPath("errors[0]").value("must be a valid ISBN-10 or ISBN-13") );
+
+        Mockito.verify(service, Mockito.never()).save(any(Book.class));
+
+    }
+
     @Test
     @DisplayName("Must throw an error when there is a duplicate isbn book")
     public void createBookWithDuplicateISBNTest() throws Exception {
@@ -151,8 +185,8 @@ public class BookControllerTest {
                 .build();
 
         BDDMockito
-                .given(service.getById(id))
-                .willReturn(Optional.of(book));
+                .given(service.getViewById(id))
+                .willReturn(Optional.of(BookView.of(book)));
 
         //when
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -176,7 +210,7 @@ public class BookControllerTest {
 
         // given
         BDDMockito
-                .given( service.getById(anyLong()) )
+                .given( service.getViewById(anyLong()) )
                 .willReturn( Optional.empty() );
 
         // when
@@ -305,15 +339,10 @@ public class BookControllerTest {
     public void mustFindBooksTest() throws Exception {
         //given
         Long id = 1L;
-        Book book = Book.builder()
-                .id(id)
-                .title(createABook().getTitle())
-                .author(createABook().getAuthor())
-                .isbn(createABook().getIsbn())
-                .build();
+        BookView book = new BookView(id, createABook().getTitle(), createABook().getAuthor(), createABook().getIsbn(), true);
 
         BDDMockito
-                .given( service.find(any(Book.class), any(Pageable.class)) )
+                .given( service.find(any(Book.class), any(Pageable.class), any(FieldSelection.class)) )
                 .willReturn( new PageImpl<>( Arrays.asList(book), PageRequest.of(0, 100), 1 ) );
 
         String queryString = String.format("?title=%s&author=%s&page=0&size=100", book.getTitle(), book.getAuthor());
@@ -332,12 +361,90 @@ public class BookControllerTest {
                 .andExpect( jsonPath("pageable.pageNumber").value(0) );
     }
 
+    @Test
+    @DisplayName("Must filter books into the lean page envelope")
+    public void mustFindBooksInLeanEnvelopeTest() throws Exception {
+        //given
+        BookView book = new BookView(1L, createABook().getTitle(), createABook().getAuthor(), createABook().getIsbn(), true);
+
+        BDDMockito
+                .given( service.find(any(Book.class), any(Pageable.class), any(FieldSelection.class)) )
+                .willReturn( new PageImpl<>( Arrays.asList(book), PageRequest.of(0, 1), 3 ) );
+
+        String queryString = String.format("?title=%s&page=0&size=1&envelope=lean", book.getTitle());
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("items", hasSize(1)))
+                .andExpect( jsonPath("items[0].title").value(book.getTitle()) )
+                .andExpect( jsonPath("next").value(1) )
+                .andExpect( jsonPath("total").doesNotExist() )
+                .andExpect( jsonPath("pageable").doesNotExist() );
+    }
+
+    @Test
+    @DisplayName("Must filter books into the lean page envelope when accepting its media type")
+    public void mustFindBooksInLeanEnvelopeByAcceptTest() throws Exception {
+        //given
+        BookView book = new BookView(1L, createABook().getTitle(), createABook().getAuthor(), createABook().getIsbn(), true);
+
+        BDDMockito
+                .given( service.find(any(Book.class), any(Pageable.class), any(FieldSelection.class)) )
+                .willReturn( new PageImpl<>( Arrays.asList(book), PageRequest.of(0, 10), 1 ) );
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=10&total=true"))
+                .accept(PageEnvelopeAdvice.LEAN_PAGE);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( content().contentTypeCompatibleWith(PageEnvelopeAdvice.LEAN_PAGE) )
+                .andExpect( jsonPath("items", hasSize(1)))
+                .andExpect( jsonPath("next").doesNotExist() )
+                .andExpect( jsonPath("total").value(1) );
+    }
+
+    @Test
+    @DisplayName("Must filter books returning only the requested fields")
+    public void mustFindBooksWithFieldsTest() throws Exception {
+        //given
+        BookView book = new BookView(1L, createABook().getTitle(), null, null, null);
+
+        BDDMockito
+                .given( service.find(any(Book.class), any(Pageable.class), any(FieldSelection.class)) )
+                .willReturn( new PageImpl<>( Arrays.asList(book), PageRequest.of(0, 10), 1 ) );
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=10&fields=id,title&envelope=lean"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("items[0].id").value(1) )
+                .andExpect( jsonPath("items[0].title").value(book.getTitle()) )
+                .andExpect( jsonPath("items[0].author").doesNotExist() )
+                .andExpect( jsonPath("items[0].available").doesNotExist() );
+
+        Mockito.verify(service).find(any(Book.class), any(Pageable.class),
+                Mockito.eq(FieldSelection.of(Arrays.asList("id", "title"))));
+    }
+
     private Book createABook() {
         return Book.builder()
                 .id(1L)
                 .title("Book Title")
                 .author("Book Author")
-                .isbn("123456")
+                .isbn("978-0-306-40615-7")
                 .build();
     }
 
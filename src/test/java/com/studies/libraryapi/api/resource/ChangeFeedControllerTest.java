@@ -0,0 +1,100 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.RecordType;
+import com.studies.libraryapi.model.entity.Tombstone;
+import com.studies.libraryapi.service.ChangeFeedService;
+import com.studies.libraryapi.service.changes.Change;
+import com.studies.libraryapi.service.changes.ChangeCursor;
+import com.studies.libraryapi.service.changes.ChangeFeed;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ChangeFeedController.class)
+@Import(ChangeFeedMapper.class)
+@AutoConfigureMockMvc
+public class ChangeFeedControllerTest {
+
+    static String CHANGES_API = "/api/changes";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ChangeFeedService service;
+
+    @MockBean
+    ChangeFeedStream stream;
+
+    @Test
+    @DisplayName("Must list changes made since the given time")
+    public void mustFindChangesTest() throws Exception {
+        //given
+        LocalDateTime since = LocalDateTime.of(2021, 8, 1, 10, 0);
+        Book book = Book.builder().id(1L).title("Book Title").author("Book Author").isbn("123")
+                .available(true).lastModified(since.plusSeconds(1)).build();
+        Tombstone tombstone = Tombstone.builder().id(1L).recordType(RecordType.BOOK).recordId(2L)
+                .deletedAt(since.plusSeconds(2)).build();
+        Change deleted = Change.of(tombstone);
+        ChangeFeed feed = new ChangeFeed(Arrays.asList(Change.of(book), deleted), deleted.getPosition(), false);
+
+        BDDMockito
+                .given( service.findChanges(eq(ChangeCursor.since(since)), anyInt()) )
+                .willReturn(feed);
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CHANGES_API.concat("?updatedSince=2021-08-01T10:00:00"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("changes", hasSize(2)) )
+                .andExpect( jsonPath("changes[0].type").value("book") )
+                .andExpect( jsonPath("changes[0].book.title").value("Book Title") )
+                .andExpect( jsonPath("changes[1].id").value(2) )
+                .andExpect( jsonPath("changes[1].deleted").value(true) )
+                .andExpect( jsonPath("next").value(deleted.getPosition().encode()) )
+                .andExpect( jsonPath("more").value(false) );
+    }
+
+    @Test
+    @DisplayName("Must return bad request for an invalid cursor")
+    public void mustNotFindChangesWithInvalidCursorTest() throws Exception {
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CHANGES_API.concat("?cursor=not-a-cursor"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors[0]").value("Invalid change cursor") );
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.studies.libraryapi.api.resource;
+
+import com.studies.libraryapi.model.entity.Customer;
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import com.studies.libraryapi.service.CustomerService;
+import com.studies.libraryapi.service.customers.CustomerLoanCursor;
+import com.studies.libraryapi.service.customers.CustomerLoanPage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+@WebMvcTest(controllers = CustomerController.class)
+@AutoConfigureMockMvc
+public class CustomerControllerTest {
+
+    static String CUSTOMER_API = "/api/customers";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    CustomerService service;
+
+    @Test
+    @DisplayName("Must list a customer's loans with the cursor of the next page")
+    public void mustFindCustomerLoansTest() throws Exception {
+        //given
+        CustomerLoanView loan = new CustomerLoanView(2L, 1L, "123", "Book Title",
+                LocalDateTime.of(2021, 8, 1, 10, 0), null, null);
+        CustomerLoanCursor next = CustomerLoanCursor.after(loan);
+        BDDMockito.given( service.getById(1L) )
+                .willReturn(Optional.of(Customer.builder().id(1L).email("someone@email.com").build()));
+        BDDMockito.given( service.getLoans(1L, CustomerLoanCursor.FIRST, 1) )
+                .willReturn(new CustomerLoanPage(Collections.singletonList(loan), next));
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/1/loans?size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("loans", hasSize(1)) )
+                .andExpect( jsonPath("loans[0].id").value(2) )
+                .andExpect( jsonPath("loans[0].title").value("Book Title") )
+                .andExpect( jsonPath("next").value(next.encode()) )
+                .andExpect( jsonPath("more").value(true) );
+    }
+
+    @Test
+    @DisplayName("Must return not found for the loans of an unknown customer")
+    public void customerNotFoundTest() throws Exception {
+        //given
+        BDDMockito.given( service.getById(1L) ).willReturn(Optional.empty());
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/1/loans"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isNotFound() );
+    }
+
+    @Test
+    @DisplayName("Must reject an invalid loan cursor")
+    public void invalidCursorTest() throws Exception {
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/1/loans?cursor=not-a-cursor"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //then
+        mvc.perform( request )
+                .andExpect( status().isBadRequest() );
+    }
+
+}
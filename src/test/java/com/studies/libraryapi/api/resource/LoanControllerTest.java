@@ -6,10 +6,16 @@ import com.studies.libraryapi.api.dto.LoanFilterDTO;
 import com.studies.libraryapi.api.dto.ReturnedLoanDTO;
 import com.studies.libraryapi.exception.BusinessException;
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Customer;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
 import com.studies.libraryapi.service.BookService;
+import com.studies.libraryapi.service.CustomerService;
 import com.studies.libraryapi.service.LoanService;
 import com.studies.libraryapi.service.LoanServiceTest;
+import com.studies.libraryapi.service.checkout.CheckoutBatcher;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -54,6 +60,12 @@ public class LoanControllerTest {
     @MockBean
     BookService bookService;
 
+    @MockBean
+    CustomerService customerService;
+
+    @MockBean
+    CheckoutBatcher checkoutBatcher;
+
     @Test
     @DisplayName("Must create a loan with success")
     public void mustCreateLoanTest() throws Exception {
@@ -73,10 +85,14 @@ public class LoanControllerTest {
                 .given(bookService.getBookByIsbn("123"))
                 .willReturn(Optional.of( book ));
 
+        BDDMockito
+                .given(customerService.register("Someone", "customer@email.com"))
+                .willReturn(Customer.builder().id(2L).name("Someone").email("customer@email.com").build());
+
         Loan loan = Loan.builder().id(1L).customer("Someone").book(book).loanDate(LocalDateTime.now()).build();
 
         BDDMockito
-                .given(service.save(Mockito.any(Loan.class)))
+                .given(checkoutBatcher.checkout(Mockito.any(Loan.class)))
                 .willReturn(loan);
 
         //when
@@ -91,6 +107,9 @@ public class LoanControllerTest {
                 .andExpect( status().isCreated() )
                 .andExpect( content().string("1") );
 
+        Mockito.verify(checkoutBatcher).checkout(Mockito.argThat(saved ->
+                saved.getCustomerId().equals(2L) && saved.getCustomerEmail().equals("customer@email.com")));
+
     }
 
     @Test
@@ -143,7 +162,7 @@ public class LoanControllerTest {
                 .willReturn(Optional.of( book ));
 
         BDDMockito
-                .given(service.save(Mockito.any(Loan.class)))
+                .given(checkoutBatcher.checkout(Mockito.any(Loan.class)))
                 .willThrow(new BusinessException("Book alredy loaned"));
 
         //when
@@ -220,14 +239,11 @@ public class LoanControllerTest {
     @DisplayName("Must filter loans")
     public void mustFindLoansTest() throws Exception {
         //given
-        Long id = 1L;
-        Loan loan = LoanServiceTest.createLoan();
-        loan.setId(id);
-        Book book = Book.builder().id(1L).isbn("123").build();
-        loan.setBook(book);
+        LoanView loan = LoanServiceTest.createLoanView();
+        BookView book = loan.getBook();
 
         BDDMockito
-                .given( service.find(any(LoanFilterDTO.class), any(Pageable.class)) )
+                .given( service.find(any(LoanFilterDTO.class), any(Pageable.class), any(FieldSelection.class)) )
                 .willReturn( new PageImpl<>( Arrays.asList(loan), PageRequest.of(0, 10), 1 ));
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10", book.getId(), loan.getCustomer());
@@ -0,0 +1,197 @@
+package com.studies.libraryapi.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    ReadWriteRoutingDataSource routingDataSource;
+
+    JdbcTemplate jdbcTemplate;
+
+    DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource primary = createDatabase("routing-primary", "primary");
+        DataSource replica = createDatabase("routing-replica", "replica");
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary,
+                Collections.singletonMap("replica-0", replica), Duration.ofMinutes(1));
+        routingDataSource.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        routingDataSource.clearStickiness();
+    }
+
+    @Test
+    @DisplayName("Must route read only transactions to a replica")
+    public void mustReadFromReplicaTest() {
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Must route read write transactions to the primary")
+    public void mustWriteToPrimaryTest() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        String source = transaction.execute(status -> currentDatabase());
+
+        assertThat(source).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Must keep reading from the primary right after a write")
+    public void mustReadYourWritesTest() {
+        List<Long> windows = new ArrayList<>();
+        routingDataSource.followWrites(windows::add);
+
+        new TransactionTemplate(transactionManager).execute(status -> currentDatabase());
+
+        assertThat(windows).hasSize(1);
+        assertThat(readOnly()).isEqualTo("primary");
+
+        routingDataSource.clearStickiness();
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Must not keep a thread on the primary after a write it does not follow")
+    public void mustNotStickUnfollowedThreadTest() {
+        new TransactionTemplate(transactionManager).execute(status -> currentDatabase());
+
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Must not keep reading from the primary after a write that rolled back")
+    public void mustNotStickAfterRollbackTest() {
+        List<Long> windows = new ArrayList<>();
+        routingDataSource.followWrites(windows::add);
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return currentDatabase();
+        });
+
+        assertThat(windows).isEmpty();
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Must not hand out the stickiness cookie when the write request commits nothing")
+    public void mustNotSetCookieWithoutCommitTest() {
+        RoutingStickinessInterceptor interceptor = new RoutingStickinessInterceptor(routingDataSource);
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/loans");
+
+        interceptor.preHandle(write, writeResponse, null);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return currentDatabase();
+        });
+        interceptor.afterCompletion(write, writeResponse, null, null);
+
+        assertThat(writeResponse.getCookie(RoutingStickinessInterceptor.COOKIE_NAME)).isNull();
+    }
+
+    @Test
+    @DisplayName("Must keep reading from the primary on the next request after a write")
+    public void mustReadYourWritesAcrossRequestsTest() {
+        RoutingStickinessInterceptor interceptor = new RoutingStickinessInterceptor(routingDataSource);
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/loans");
+        interceptor.preHandle(write, writeResponse, null);
+        new TransactionTemplate(transactionManager).execute(status -> currentDatabase());
+        interceptor.afterCompletion(write, writeResponse, null, null);
+
+        Cookie cookie = writeResponse.getCookie(RoutingStickinessInterceptor.COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+        assertThat(readOnly()).isEqualTo("replica");
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/loans");
+        read.setCookies(cookie);
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        assertThat(readOnly()).isEqualTo("primary");
+        interceptor.afterCompletion(read, new MockHttpServletResponse(), null, null);
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/loans");
+        expired.setCookies(new Cookie(RoutingStickinessInterceptor.COOKIE_NAME,
+                Long.toString(System.currentTimeMillis() - 1)));
+        interceptor.preHandle(expired, new MockHttpServletResponse(), null);
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Must fall back to the primary when no replica is healthy")
+    public void mustFallBackToPrimaryTest() {
+        routingDataSource.updateReplicaHealth("replica-0", false);
+
+        assertThat(readOnly()).isEqualTo("primary");
+
+        routingDataSource.updateReplicaHealth("replica-0", true);
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Must migrate the replicas after the primary when asked to")
+    public void mustMigrateReplicasTest() {
+        DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:migration-primary;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:migration-replica;DB_CLOSE_DELAY=-1", "sa", "");
+        ReadWriteRoutingDataSource migrated = new ReadWriteRoutingDataSource(primary,
+                Collections.singletonMap("replica-0", replica), Duration.ofMinutes(1));
+        Flyway flyway = Flyway.configure().dataSource(primary).load();
+
+        new DataSourceRoutingConfig().replicaMigrationStrategy(migrated).migrate(flyway);
+
+        assertThat(Flyway.configure().dataSource(primary).load().info().pending()).isEmpty();
+        assertThat(Flyway.configure().dataSource(replica).load().info().pending()).isEmpty();
+        assertThat(new JdbcTemplate(replica).queryForObject("select count(*) from book", Integer.class)).isZero();
+    }
+
+    private String readOnly() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select name from source", String.class);
+    }
+
+    private static DataSource createDatabase(String database, String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists source (name varchar(20))");
+        jdbcTemplate.execute("delete from source");
+        jdbcTemplate.update("insert into source (name) values (?)", name);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.studies.libraryapi.model.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnCodecTest {
+
+    @Test
+    @DisplayName("Must pack both spellings of an isbn to the same thirteen digit number")
+    public void mustPackIsbn10AndIsbn13AlikeTest() {
+
+        //when
+        long isbn13 = IsbnCodec.pack("978-0-306-40615-7");
+        long isbn10 = IsbnCodec.pack("0 306 40615 2");
+        long withCheckX = IsbnCodec.pack("080442957X");
+
+        //then
+        assertThat(isbn13).isEqualTo(9780306406157L);
+        assertThat(isbn10).isEqualTo(isbn13);
+        assertThat(withCheckX).isEqualTo(9780804429573L);
+        assertThat(IsbnCodec.pack("979-10-90636-07-1")).isEqualTo(9791090636071L);
+
+    }
+
+    @Test
+    @DisplayName("Must not pack strings that are not valid isbns")
+    public void mustNotPackInvalidIsbnTest() {
+
+        assertThat(IsbnCodec.pack(null)).isEqualTo(IsbnCodec.NONE);
+        assertThat(IsbnCodec.pack("123")).isEqualTo(IsbnCodec.NONE);
+        assertThat(IsbnCodec.pack("978-0-306-40615-8")).isEqualTo(IsbnCodec.NONE);
+        assertThat(IsbnCodec.pack("0306406153")).isEqualTo(IsbnCodec.NONE);
+        assertThat(IsbnCodec.pack("1234567890128")).isEqualTo(IsbnCodec.NONE);
+        assertThat(IsbnCodec.pack("97803064061570")).isEqualTo(IsbnCodec.NONE);
+        assertThat(IsbnCodec.pack("978030640615a")).isEqualTo(IsbnCodec.NONE);
+
+    }
+
+}
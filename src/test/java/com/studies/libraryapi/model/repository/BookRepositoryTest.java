@@ -1,18 +1,28 @@
 package com.studies.libraryapi.model.repository;
 
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith({SpringExtension.class})
 @ActiveProfiles("test")
@@ -106,6 +116,211 @@ public class BookRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Must get a book by an isbn that is not a valid isbn as written")
+    public void mustFindABookByIsbnTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persistAndFlush(book);
+        entityManager.clear();
+
+        //when
+        Optional<Book> foundBook = bookRespository.findByIsbn("123");
+
+        //then
+        assertThat(foundBook.isPresent()).isTrue();
+        assertThat(foundBook.get().getId()).isEqualTo(book.getId());
+
+    }
+
+    @Test
+    @DisplayName("Must find a book by any spelling of its isbn through the isbn number natural id")
+    public void mustFindBookByIsbnNumber() {
+
+        //given
+        Book book = createNewBook("978-0-306-40615-7");
+        entityManager.persistAndFlush(book);
+        entityManager.clear();
+
+        //when
+        Optional<Book> foundBook = bookRespository.findByIsbn("0306406152");
+        boolean bookExists = bookRespository.existsByIsbn("9780306406157");
+
+        //then
+        assertThat(book.getIsbnNumber()).isEqualTo(9780306406157L);
+        assertThat(foundBook.map(Book::getId)).contains(book.getId());
+        assertThat(bookExists).isTrue();
+        assertThat(bookRespository.existsByIsbn("9780804429573")).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("Must mark an available book as loaned only once")
+    public void mustMarkABookAsLoanedOnlyOnceTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+
+        //when
+        int firstCheckout = bookRespository.markAsLoaned(book.getId(), 1L);
+        int secondCheckout = bookRespository.markAsLoaned(book.getId(), 2L);
+
+        //then
+        assertThat(firstCheckout).isEqualTo(1);
+        assertThat(secondCheckout).isEqualTo(0);
+        assertThat(bookRespository.existsByIdAndAvailableTrue(book.getId())).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("Must make a book available again only for its active loan")
+    public void mustMarkABookAsReturnedTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        bookRespository.markAsLoaned(book.getId(), 1L);
+
+        //when
+        int staleReturn = bookRespository.markAsReturned(book.getId(), 2L);
+        int activeReturn = bookRespository.markAsReturned(book.getId(), 1L);
+
+        //then
+        assertThat(staleReturn).isEqualTo(0);
+        assertThat(activeReturn).isEqualTo(1);
+        assertThat(bookRespository.existsByIdAndAvailableTrue(book.getId())).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("Must find books pointing to a loan that is not open")
+    public void mustFindBooksWithStaleAvailabilityTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        bookRespository.markAsLoaned(book.getId(), 99L);
+
+        //when
+        List<Long> staleIds = bookRespository.findIdsWithStaleAvailability();
+
+        //then
+        assertThat(staleIds).containsExactly(book.getId());
+
+    }
+
+    @Test
+    @DisplayName("Must find book views matching an example")
+    public void mustFindBookViewsTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        Example<Book> example = Example.of(Book.builder().title("title").build(),
+                ExampleMatcher.matching()
+                        .withIgnoreCase()
+                        .withIgnoreNullValues()
+                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+
+        //when
+        Page<BookView> result = bookRespository.findViews(example, PageRequest.of(0, 10), FieldSelection.ALL);
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getId()).isEqualTo(book.getId());
+        assertThat(result.getContent().get(0).getIsbn()).isEqualTo("123");
+        assertThat(result.getContent().get(0).getAvailable()).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("Must find book views with only the selected columns")
+    public void mustFindBookViewsWithFieldsTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        Example<Book> example = Example.of(Book.builder().isbn("123").build());
+
+        //when
+        Page<BookView> result = bookRespository.findViews(example, PageRequest.of(0, 10),
+                FieldSelection.of(Arrays.asList("title")));
+
+        //then
+        BookView view = result.getContent().get(0);
+        assertThat(view.getId()).isEqualTo(book.getId());
+        assertThat(view.getTitle()).isEqualTo(book.getTitle());
+        assertThat(view.getAuthor()).isNull();
+        assertThat(view.getIsbn()).isNull();
+
+    }
+
+    @Test
+    @DisplayName("Must find books changed after a cursor position")
+    public void mustFindBooksChangedSinceTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        LocalDateTime until = book.getLastModified().plusSeconds(1);
+
+        //when
+        List<Book> fromTime = bookRespository.findChangedSince(book.getLastModified(), Long.MIN_VALUE, until, PageRequest.of(0, 10));
+        List<Book> afterBook = bookRespository.findChangedSince(book.getLastModified(), book.getId(), until, PageRequest.of(0, 10));
+        List<Book> beforeLag = bookRespository.findChangedSince(book.getLastModified(), Long.MIN_VALUE, book.getLastModified(), PageRequest.of(0, 10));
+
+        //then
+        assertThat(fromTime).containsExactly(book);
+        assertThat(afterBook).isEmpty();
+        assertThat(beforeLag).isEmpty();
+
+    }
+
+    @Test
+    @DisplayName("Must not make a book available once its drift was fixed by a checkout")
+    public void mustNotMarkABookAsAvailableAfterCheckoutTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        bookRespository.markAsLoaned(book.getId(), 99L);
+        List<Long> staleIds = bookRespository.findIdsWithStaleAvailability();
+        Loan loan = Loan.builder().book(book).customer("Someone").loanDate(LocalDateTime.now()).build();
+        entityManager.persist(loan);
+        bookRespository.markAsReturned(book.getId(), 99L);
+        bookRespository.markAsLoaned(book.getId(), loan.getId());
+
+        //when
+        int repaired = bookRespository.markAsAvailable(book.getId());
+
+        //then
+        assertThat(staleIds).containsExactly(book.getId());
+        assertThat(repaired).isEqualTo(0);
+        assertThat(bookRespository.existsByIdAndAvailableTrue(book.getId())).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("Must not assign a loan returned since the drift was read")
+    public void mustNotAssignAReturnedLoanTest() {
+
+        //given
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        Loan loan = Loan.builder().book(book).customer("Someone").loanDate(LocalDateTime.now()).returned(true).build();
+        entityManager.persistAndFlush(loan);
+
+        //when
+        int repaired = bookRespository.assignActiveLoan(book.getId(), loan.getId());
+
+        //then
+        assertThat(repaired).isEqualTo(0);
+        assertThat(bookRespository.existsByIdAndAvailableTrue(book.getId())).isTrue();
+
+    }
+
     public static Book createNewBook(String isbn) {
         return Book.builder()
                 .title("Book Title")
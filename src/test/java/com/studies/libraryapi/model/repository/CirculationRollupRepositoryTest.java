@@ -0,0 +1,59 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.CirculationRollup;
+import com.studies.libraryapi.model.entity.RollupDimension;
+import com.studies.libraryapi.model.projection.CirculationReportRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+@DataJpaTest
+public class CirculationRollupRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    CirculationRollupRepository repository;
+
+    @Test
+    @DisplayName("Must sum daily rollups into months")
+    public void mustFindMonthlyRollupsTest() {
+
+        //given
+        entityManager.persist(createRollup("Author", LocalDate.of(2021, 8, 1), 2));
+        entityManager.persist(createRollup("Author", LocalDate.of(2021, 8, 20), 3));
+        entityManager.persist(createRollup("Author", LocalDate.of(2021, 9, 1), 1));
+
+        //when
+        List<CirculationReportRow> rows = repository.findMonthly(RollupDimension.AUTHOR,
+                LocalDate.of(2021, 1, 1), LocalDate.of(2021, 8, 31), PageRequest.of(0, 10));
+
+        //then
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getPeriod()).isEqualTo(LocalDate.of(2021, 8, 1));
+        assertThat(rows.get(0).getValue()).isEqualTo("Author");
+        assertThat(rows.get(0).getLoans()).isEqualTo(5);
+
+    }
+
+    private CirculationRollup createRollup(String author, LocalDate period, long loans) {
+        CirculationRollup rollup = CirculationRollup.empty(RollupDimension.AUTHOR, author, period);
+        rollup.setLoans(loans);
+        return rollup;
+    }
+
+}
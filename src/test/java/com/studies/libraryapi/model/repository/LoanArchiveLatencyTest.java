@@ -0,0 +1,112 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.RolledUpLoan;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.studies.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+@DataJpaTest(properties = StatementRecorder.PROPERTY)
+@Slf4j
+public class LoanArchiveLatencyTest {
+
+    private static final int BOOKS = 50;
+    private static final int RETURNED_LOANS_PER_BOOK = 100;
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Test
+    @DisplayName("Hot loan queries must answer the same and read fewer rows once returned loans are archived")
+    public void hotQueriesAfterArchivingTest() {
+
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = createNewBook("isbn-" + i);
+            entityManager.persist(book);
+            books.add(book);
+            for (int j = 0; j < RETURNED_LOANS_PER_BOOK; j++) {
+                Loan loan = Loan.builder().book(book).customer("Customer " + j)
+                        .loanDate(now.minusDays(30 + j)).returned(true).returnDate(now.minusDays(29 + j)).build();
+                entityManager.persist(loan);
+                entityManager.persist(new RolledUpLoan(loan.getId(), true));
+            }
+            entityManager.persist(Loan.builder().book(book).customer("Someone").loanDate(now.minusDays(10)).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Book book = books.get(BOOKS / 2);
+        LocalDateTime lateCutoff = now.minusDays(4);
+        String existsQuery = StatementRecorder.queryOf(() -> repository.existsByBookAndNotReturned(book));
+        String lateQuery = StatementRecorder.queryOf(() -> repository.findByLoanDateLessThanAndNotReturned(lateCutoff));
+
+        //when
+        boolean existsBefore = repository.existsByBookAndNotReturned(book);
+        int lateLoansBefore = repository.findByLoanDateLessThanAndNotReturned(lateCutoff).size();
+        long rowsBefore = rowsScanned(existsQuery, book.getId()) + rowsScanned(lateQuery, lateCutoff);
+        long nanosBefore = nanosPerRound(() -> repository.existsByBookAndNotReturned(book)
+                && !repository.findByLoanDateLessThanAndNotReturned(lateCutoff).isEmpty());
+
+        LocalDateTime cutoff = LocalDateTime.now().plusSeconds(1);
+        int archived = 0;
+        int batch;
+        while ((batch = repository.archiveReturnedBefore(cutoff, 500)) > 0)
+            archived += batch;
+        entityManager.clear();
+
+        boolean existsAfter = repository.existsByBookAndNotReturned(book);
+        int lateLoansAfter = repository.findByLoanDateLessThanAndNotReturned(lateCutoff).size();
+        long rowsAfter = rowsScanned(existsQuery, book.getId()) + rowsScanned(lateQuery, lateCutoff);
+        long nanosAfter = nanosPerRound(() -> repository.existsByBookAndNotReturned(book)
+                && !repository.findByLoanDateLessThanAndNotReturned(lateCutoff).isEmpty());
+
+        //then
+        log.info("hot queries: {} rows and {} ns per round with returned loans, {} rows and {} ns after archiving",
+                rowsBefore, nanosBefore, rowsAfter, nanosAfter);
+        assertThat(archived).isEqualTo(BOOKS * RETURNED_LOANS_PER_BOOK);
+        assertThat(existsAfter).isEqualTo(existsBefore).isTrue();
+        assertThat(lateLoansAfter).isEqualTo(lateLoansBefore).isEqualTo(BOOKS);
+        assertThat(repository.count()).isEqualTo(BOOKS);
+        assertThat(rowsBefore).isGreaterThan(BOOKS * RETURNED_LOANS_PER_BOOK);
+        assertThat(rowsAfter).isLessThanOrEqualTo(2 * (BOOKS + 1));
+
+    }
+
+    private long rowsScanned(String sql, Object... parameters) {
+        return StatementRecorder.rowsScanned(entityManager.getEntityManager(), sql, parameters);
+    }
+
+    private long nanosPerRound(Supplier<Boolean> round) {
+        for (int i = 0; i < ROUNDS; i++)
+            round.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            round.get();
+        entityManager.clear();
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+}
@@ -1,7 +1,13 @@
 package com.studies.libraryapi.model.repository;
 
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Customer;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.RolledUpLoan;
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import com.studies.libraryapi.model.projection.OpenLoanCount;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,10 +16,13 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.studies.libraryapi.model.repository.BookRepositoryTest.createNewBook;
@@ -57,17 +66,20 @@ public class LoanRepositoryTest {
 
         //given
         Book book = createNewBook("123");
+        Customer customer = Customer.builder().name("Someone").email("someone@email.com").build();
+        entityManager.persist(customer);
 
         Loan loan = Loan.builder()
                 .book(book)
                 .customer("Someone")
+                .customerId(customer.getId())
                 .loanDate(LocalDateTime.now())
                 .build();
 
         //when
         entityManager.persist(book);
         entityManager.persist(loan);
-        Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "Someone", PageRequest.of(0, 10));
+        Page<Loan> result = repository.findByBookIsbnOrCustomer("456", customer.getId(), PageRequest.of(0, 10));
 
         //then
         assertThat(result.getContent()).hasSize(1);
@@ -100,6 +112,29 @@ public class LoanRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Must list each late customer email once")
+    public void checkMethodFindLateCustomerEmails() {
+
+        //given
+        Customer customer = Customer.builder().name("Someone").email("someone@email.com").build();
+        entityManager.persist(customer);
+        LocalDateTime loanDate = LocalDateTime.now().minusDays(5);
+        for (String isbn : Arrays.asList("123", "456")) {
+            Book book = createNewBook(isbn);
+            entityManager.persist(book);
+            entityManager.persist(Loan.builder().book(book).customer("Someone").customerId(customer.getId())
+                    .loanDate(loanDate).build());
+        }
+
+        //when
+        List<String> emails = repository.findLateCustomerEmails(LocalDateTime.now().minusDays(4));
+
+        //then
+        assertThat(emails).containsExactly("someone@email.com");
+
+    }
+
     @Test
     @DisplayName("Must return empty when there is no returned loans")
     public void mustNotFindByLoanDateLessThanAndNotReturned() {
@@ -122,4 +157,270 @@ public class LoanRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Must find open loans not tracked as active by their book")
+    public void checkMethodFindNotReturnedUntrackedByBook() {
+
+        //given
+        Book book = createNewBook("123");
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Someone")
+                .loanDate( LocalDateTime.now() )
+                .build();
+
+        //when
+        entityManager.persist(book);
+        entityManager.persist(loan);
+        List<Loan> result = repository.findNotReturnedUntrackedByBook();
+
+        //then
+        assertThat(result).hasSize(1).contains(loan);
+
+    }
+
+    @Test
+    @DisplayName("Must filter loans only by the supplied specifications")
+    public void checkFindAllBySpecifications() {
+
+        //given
+        Book book = createNewBook("123");
+        Loan recentLoan = Loan.builder()
+                .book(book)
+                .customer("Someone")
+                .loanDate( LocalDateTime.now() )
+                .build();
+        Loan oldLoan = Loan.builder()
+                .book(book)
+                .customer("Someone")
+                .loanDate( LocalDateTime.now().minusDays(10) )
+                .returned(true)
+                .build();
+
+        //when
+        entityManager.persist(book);
+        entityManager.persist(recentLoan);
+        entityManager.persist(oldLoan);
+        Page<Loan> result = repository.findAll(
+                LoanSpecifications.customer("Someone")
+                        .and(LoanSpecifications.returned(false))
+                        .and(LoanSpecifications.loanDateFrom(LocalDate.now().minusDays(1))),
+                PageRequest.of(0, 10));
+
+        //then
+        assertThat(result.getContent()).containsExactly(recentLoan);
+
+    }
+
+    @Test
+    @DisplayName("Must find loan views of a book with their book columns")
+    public void checkMethodFindViews() {
+
+        //given
+        Book book = createNewBook("123");
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Someone")
+                .customerEmail("someone@email.com")
+                .loanDate( LocalDateTime.now() )
+                .build();
+
+        //when
+        entityManager.persist(book);
+        entityManager.persist(loan);
+        Page<LoanView> result = repository.findViews(LoanSpecifications.bookId(book.getId()), PageRequest.of(0, 10), FieldSelection.ALL);
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        LoanView view = result.getContent().get(0);
+        assertThat(view.getId()).isEqualTo(loan.getId());
+        assertThat(view.getCustomerEmail()).isEqualTo("someone@email.com");
+        assertThat(view.getBook().getIsbn()).isEqualTo("123");
+
+    }
+
+    @Test
+    @DisplayName("Must find loan views with only the selected columns")
+    public void checkMethodFindViewsWithFields() {
+
+        //given
+        Book book = createNewBook("123");
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Someone")
+                .customerEmail("someone@email.com")
+                .loanDate( LocalDateTime.now() )
+                .build();
+
+        //when
+        entityManager.persist(book);
+        entityManager.persist(loan);
+        Page<LoanView> result = repository.findViews(LoanSpecifications.customer("Someone"), PageRequest.of(0, 10),
+                FieldSelection.of(Arrays.asList("customer")));
+
+        //then
+        LoanView view = result.getContent().get(0);
+        assertThat(view.getId()).isEqualTo(loan.getId());
+        assertThat(view.getCustomer()).isEqualTo("Someone");
+        assertThat(view.getCustomerEmail()).isNull();
+        assertThat(view.getBook()).isNull();
+
+    }
+
+    @Test
+    @DisplayName("Must count open loans per hour of their loan date")
+    public void checkMethodCountOpenLoansByHour() {
+
+        //given
+        Book book = createNewBook("123");
+        LocalDateTime loanDate = LocalDateTime.of(2021, 8, 1, 9, 15);
+        Loan open = Loan.builder().book(book).customer("Someone").loanDate(loanDate).build();
+        Loan returned = Loan.builder().book(book).customer("Someone").loanDate(loanDate).returned(true).build();
+
+        //when
+        entityManager.persist(book);
+        entityManager.persist(open);
+        entityManager.persist(returned);
+        List<OpenLoanCount> counts = repository.countOpenLoansByHour();
+
+        //then
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0).getStartOfHour()).isEqualTo(LocalDateTime.of(2021, 8, 1, 9, 0));
+        assertThat(counts.get(0).getCount()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Must move rolled up returned loans to the archive")
+    public void checkMethodArchiveReturnedBefore() {
+
+        //given
+        Book book = createNewBook("123");
+        Loan returned = Loan.builder().book(book).customer("Someone").loanDate(LocalDateTime.now()).returned(true)
+                .returnDate(LocalDateTime.now()).build();
+        Loan notRolledUp = Loan.builder().book(book).customer("Someone").loanDate(LocalDateTime.now()).returned(true)
+                .returnDate(LocalDateTime.now()).build();
+        entityManager.persist(book);
+        entityManager.persist(returned);
+        entityManager.persist(notRolledUp);
+        entityManager.persistAndFlush(new RolledUpLoan(returned.getId(), true));
+        entityManager.clear();
+
+        //when
+        int archived = repository.archiveReturnedBefore(LocalDateTime.now().plusSeconds(1), 10);
+        Page<LoanView> views = repository.findViewsWithArchived(LoanSpecifications.bookId(book.getId()),
+                PageRequest.of(0, 10, Sort.by("id")), FieldSelection.ALL);
+
+        //then
+        assertThat(archived).isEqualTo(1);
+        assertThat(repository.findById(returned.getId())).isEmpty();
+        assertThat(repository.findById(notRolledUp.getId())).isPresent();
+        assertThat(views.getTotalElements()).isEqualTo(2);
+        assertThat(views.getContent()).extracting(LoanView::getId).containsExactly(returned.getId(), notRolledUp.getId());
+        assertThat(views.getContent().get(0).getBook().getIsbn()).isEqualTo("123");
+
+    }
+
+    @Test
+    @DisplayName("Must archive returned loans by return date even when edited since")
+    public void checkMethodArchiveReturnedBeforeByReturnDate() {
+
+        //given
+        Book book = createNewBook("123");
+        LocalDateTime now = LocalDateTime.now();
+        Loan returnedLongAgo = Loan.builder().book(book).customer("Someone").loanDate(now.minusDays(45))
+                .returned(true).returnDate(now.minusDays(40)).build();
+        Loan returnedLately = Loan.builder().book(book).customer("Someone").loanDate(now.minusDays(15))
+                .returned(true).returnDate(now.minusDays(10)).build();
+        entityManager.persist(book);
+        entityManager.persist(returnedLongAgo);
+        entityManager.persist(returnedLately);
+        entityManager.persist(new RolledUpLoan(returnedLongAgo.getId(), true));
+        entityManager.persistAndFlush(new RolledUpLoan(returnedLately.getId(), true));
+        entityManager.clear();
+
+        //when
+        int archived = repository.archiveReturnedBefore(now.minusDays(30), 10);
+
+        //then
+        assertThat(archived).isEqualTo(1);
+        assertThat(repository.findById(returnedLongAgo.getId())).isEmpty();
+        assertThat(repository.findById(returnedLately.getId())).isPresent();
+
+    }
+
+    @Test
+    @DisplayName("Must sort live and archived loans as one list")
+    public void checkMethodFindViewsWithArchived() {
+
+        //given
+        Book book = createNewBook("123");
+        LocalDateTime now = LocalDateTime.now();
+        Loan oldest = Loan.builder().book(book).customer("Someone").loanDate(now.minusDays(3)).returned(true)
+                .returnDate(now).build();
+        Loan newest = Loan.builder().book(book).customer("Someone").loanDate(now.minusDays(1)).returned(true)
+                .returnDate(now).build();
+        Loan middle = Loan.builder().book(book).customer("Someone").loanDate(now.minusDays(2)).build();
+        entityManager.persist(book);
+        entityManager.persist(oldest);
+        entityManager.persist(newest);
+        entityManager.persist(middle);
+        entityManager.persist(new RolledUpLoan(oldest.getId(), true));
+        entityManager.persistAndFlush(new RolledUpLoan(newest.getId(), true));
+        entityManager.clear();
+        repository.archiveReturnedBefore(now.plusSeconds(1), 10);
+
+        //when
+        Sort byLoanDate = Sort.by(Sort.Direction.DESC, "loanDate");
+        Page<LoanView> first = repository.findViewsWithArchived(LoanSpecifications.customer("Someone"),
+                PageRequest.of(0, 2, byLoanDate), FieldSelection.of(Arrays.asList("customer")));
+        Page<LoanView> second = repository.findViewsWithArchived(LoanSpecifications.customer("Someone"),
+                PageRequest.of(1, 2, byLoanDate), FieldSelection.of(Arrays.asList("customer")));
+
+        //then
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).extracting(LoanView::getId).containsExactly(newest.getId(), middle.getId());
+        assertThat(second.getContent()).extracting(LoanView::getId).containsExactly(oldest.getId());
+
+    }
+
+    @Test
+    @DisplayName("Must page a customer's returned loans across the live and archived loans")
+    public void checkMethodFindCustomerLoans() {
+
+        //given
+        Book book = createNewBook("123");
+        Customer customer = Customer.builder().name("Someone").email("someone@email.com").build();
+        entityManager.persist(book);
+        entityManager.persist(customer);
+        LocalDateTime loanDate = LocalDateTime.of(2021, 8, 1, 9, 0);
+        Loan open = Loan.builder().book(book).customer("Someone").customerId(customer.getId())
+                .loanDate(loanDate.plusDays(3)).build();
+        Loan archived = Loan.builder().book(book).customer("Someone").customerId(customer.getId())
+                .loanDate(loanDate.plusDays(2)).returned(true).returnDate(loanDate.plusDays(4)).build();
+        Loan returned = Loan.builder().book(book).customer("Someone").customerId(customer.getId())
+                .loanDate(loanDate.plusDays(1)).returned(true).returnDate(loanDate.plusDays(4)).build();
+        Loan oldest = Loan.builder().book(book).customer("Someone").customerId(customer.getId())
+                .loanDate(loanDate).returned(true).returnDate(loanDate.plusDays(4)).build();
+        for (Loan loan : Arrays.asList(open, archived, returned, oldest))
+            entityManager.persist(loan);
+        entityManager.persistAndFlush(new RolledUpLoan(archived.getId(), true));
+        entityManager.clear();
+        repository.archiveReturnedBefore(LocalDateTime.now().plusSeconds(1), 10);
+
+        //when
+        List<CustomerLoanView> openLoans = repository.findCustomerLoans(customer.getId(), false, null, null, 10);
+        List<CustomerLoanView> firstPage = repository.findCustomerLoans(customer.getId(), true, null, null, 2);
+        CustomerLoanView last = firstPage.get(1);
+        List<CustomerLoanView> secondPage = repository.findCustomerLoans(customer.getId(), true,
+                last.getLoanDate(), last.getId(), 2);
+
+        //then
+        assertThat(openLoans).extracting(CustomerLoanView::getId).containsExactly(open.getId());
+        assertThat(firstPage).extracting(CustomerLoanView::getId).containsExactly(archived.getId(), returned.getId());
+        assertThat(firstPage.get(0).getIsbn()).isEqualTo("123");
+        assertThat(secondPage).extracting(CustomerLoanView::getId).containsExactly(oldest.getId());
+
+    }
+
 }
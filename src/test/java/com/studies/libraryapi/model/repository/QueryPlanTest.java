@@ -0,0 +1,185 @@
+package com.studies.libraryapi.model.repository;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.studies.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+@DataJpaTest(properties = StatementRecorder.PROPERTY)
+public class QueryPlanTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRespository bookRespository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Test
+    @DisplayName("Must look up loans by customer through an index")
+    public void customerFilterUsesIndex() {
+        assertThat(plansOf(LoanSpecifications.customer("Someone")))
+                .allSatisfy(plan -> assertThat(plan).contains("IDX_LOAN_CUSTOMER", "IDX_LOAN_ARCHIVE_CUSTOMER"));
+    }
+
+    @Test
+    @DisplayName("Must look up loans by customer email through an index")
+    public void emailFilterUsesIndex() {
+        assertThat(plansOf(LoanSpecifications.email("someone@email.com")))
+                .allSatisfy(plan -> assertThat(plan)
+                        .contains("IDX_LOAN_CUSTOMER_EMAIL", "IDX_LOAN_ARCHIVE_CUSTOMER_EMAIL"));
+    }
+
+    @Test
+    @DisplayName("Must look up loans by book isbn through an index")
+    public void isbnFilterUsesIndex() {
+        assertThat(plansOf(LoanSpecifications.isbn("9780306406157")))
+                .allSatisfy(plan -> assertThat(plan).contains("IDX_BOOK_ISBN_NUMBER").doesNotContain("TABLESCAN"));
+    }
+
+    @Test
+    @DisplayName("Must look up loans by loan date range through an index")
+    public void loanDateFilterUsesIndex() {
+        Specification<Loan> range = LoanSpecifications.loanDateFrom(LocalDate.of(2021, 1, 1))
+                .and(LoanSpecifications.loanDateTo(LocalDate.of(2021, 1, 31)));
+
+        assertThat(plansOf(range))
+                .allSatisfy(plan -> assertThat(plan).contains("IDX_LOAN_LOAN_DATE", "IDX_LOAN_ARCHIVE_LOAN_DATE"));
+    }
+
+    @Test
+    @DisplayName("Must check isbn existence through the unique isbn number index")
+    public void existsByIsbnUsesIndex() {
+        assertThat(planOf(() -> bookRespository.existsByIsbn("9780306406157")))
+                .contains("IDX_BOOK_ISBN_NUMBER");
+    }
+
+    @Test
+    @DisplayName("Must find a book by isbn through the unique isbn number index")
+    public void findByIsbnUsesIndex() {
+        assertThat(planOf(() -> bookRespository.findByIsbn("9780306406157")))
+                .contains("IDX_BOOK_ISBN_NUMBER");
+    }
+
+    @Test
+    @DisplayName("Must list available books through an index")
+    public void availableFilterUsesIndex() {
+        Book available = Book.builder().available(true).build();
+        ExampleMatcher matcher = ExampleMatcher.matching().withIgnoreNullValues();
+
+        assertThat(planOf(() -> bookRespository.findViews(Example.of(available, matcher),
+                PageRequest.of(2, 10), FieldSelection.ALL)))
+                .contains("IDX_BOOK_AVAILABLE");
+    }
+
+    @Test
+    @DisplayName("Must check open loans of a book without scanning the loan table")
+    public void existsByBookAndNotReturnedUsesIndex() {
+        Book book = entityManager.persist(createNewBook("123"));
+
+        assertThat(planOf(() -> loanRepository.existsByBookAndNotReturned(book)))
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    @DisplayName("Must page loans of a book without scanning the loan table")
+    public void findByBookUsesIndex() {
+        Book book = entityManager.persist(createNewBook("123"));
+
+        assertThat(planOf(() -> loanRepository.findByBook(book, PageRequest.of(2, 10))))
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    @DisplayName("Must find late loans through the loan date index")
+    public void lateLoansUseIndex() {
+        LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(3);
+
+        assertThat(planOf(() -> loanRepository.findByLoanDateLessThanAndNotReturned(threeDaysAgo)))
+                .contains("IDX_LOAN_LOAN_DATE");
+        assertThat(planOf(() -> loanRepository.findLateCustomerEmails(threeDaysAgo)))
+                .contains("IDX_LOAN_LOAN_DATE");
+    }
+
+    @Test
+    @DisplayName("Must look up a customer by email through the unique email index")
+    public void customerByEmailUsesIndex() {
+        assertThat(planOf(() -> customerRepository.findByEmail("someone@email.com")))
+                .contains("IDX_CUSTOMER_EMAIL");
+    }
+
+    /*
+     * H2 costs the foreign key index on customer_id the same as the customer and loan date
+     * index for the live table and takes the former, so only the lookup by customer is checked there.
+     */
+    @Test
+    @DisplayName("Must page a customer's loans through a customer index")
+    public void customerLoansUseIndex() {
+        List<String> queries = StatementRecorder.queriesOf(() -> loanRepository.findCustomerLoans(
+                1L, true, LocalDateTime.now(), 10L, 20));
+
+        assertThat(queries).hasSize(2);
+        assertThat(StatementRecorder.explain(entityManager.getEntityManager(), queries.get(0)))
+                .contains("CUSTOMER_ID = 1")
+                .doesNotContain("TABLESCAN");
+        assertThat(StatementRecorder.explain(entityManager.getEntityManager(), queries.get(1)))
+                .contains("IDX_LOAN_ARCHIVE_CUSTOMER_LOAN_DATE");
+    }
+
+    @Test
+    @DisplayName("Must page live and archived loans in one query through the indexes of both tables")
+    public void loansWithArchivedUseIndexes() {
+        List<String> queries = StatementRecorder.queriesOf(() -> loanRepository.findViewsWithArchived(
+                LoanSpecifications.customer("Someone"), PageRequest.of(2, 10, Sort.by("loanDate")), FieldSelection.ALL));
+
+        assertThat(queries).hasSize(2);
+        for (String query : queries) {
+            assertThat(StatementRecorder.explain(entityManager.getEntityManager(), query))
+                    .contains("IDX_LOAN_CUSTOMER", "IDX_LOAN_ARCHIVE_CUSTOMER");
+        }
+    }
+
+    private String planOf(Runnable call) {
+        return StatementRecorder.explain(entityManager.getEntityManager(), StatementRecorder.queryOf(call));
+    }
+
+    /*
+     * The plans of the page and count queries the loan filter sends for the specification.
+     */
+    private List<String> plansOf(Specification<Loan> specification) {
+        List<String> queries = StatementRecorder.queriesOf(() -> loanRepository.findViewsWithArchived(
+                specification, PageRequest.of(2, 10, Sort.by("loanDate")), FieldSelection.ALL));
+        assertThat(queries).isNotEmpty();
+        return queries.stream()
+                .map(query -> StatementRecorder.explain(entityManager.getEntityManager(), query))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.studies.libraryapi.model.repository;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records the SQL Hibernate sends to the database, so plan tests explain the statements the
+ * repositories actually run. Enabled with the {@link #PROPERTY} test property.
+ */
+public class StatementRecorder implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "com.studies.libraryapi.model.repository.StatementRecorder";
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    /**
+     * Runs the call and returns the queries it sent, in order.
+     */
+    public static List<String> queriesOf(Runnable call) {
+        statements.clear();
+        call.run();
+        List<String> queries = new ArrayList<>();
+        for (String statement : statements) {
+            if (statement.trim().toLowerCase().startsWith("select"))
+                queries.add(statement);
+        }
+        return queries;
+    }
+
+    /**
+     * Runs the call and returns the first query it sent; the ones after it load associations.
+     */
+    public static String queryOf(Runnable call) {
+        List<String> queries = queriesOf(call);
+        if (queries.isEmpty())
+            throw new AssertionError("No query was sent");
+        return queries.get(0);
+    }
+
+    /**
+     * The plan of a recorded query. Parameters that are not given are bound to null, which
+     * does not change the plan, as it is chosen when the statement is prepared.
+     */
+    public static String explain(EntityManager entityManager, String sql, Object... parameters) {
+        return run(entityManager, "explain " + sql, parameters).toUpperCase();
+    }
+
+    /**
+     * Runs a recorded query with the given parameters and returns how many rows it read.
+     */
+    public static long rowsScanned(EntityManager entityManager, String sql, Object... parameters) {
+        Matcher matcher = SCAN_COUNT.matcher(run(entityManager, "explain analyze " + sql, parameters));
+        long rows = 0;
+        while (matcher.find())
+            rows += Long.parseLong(matcher.group(1));
+        return rows;
+    }
+
+    private static String run(EntityManager entityManager, String sql, Object... parameters) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int count = statement.getParameterMetaData().getParameterCount();
+                for (int i = 0; i < count; i++)
+                    statement.setObject(i + 1, i < parameters.length ? parameters[i] : null);
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+}
@@ -2,8 +2,19 @@ package com.studies.libraryapi.service;
 
 import com.studies.libraryapi.exception.BusinessException;
 import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.RecordType;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
 import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.TombstoneRepository;
+import com.studies.libraryapi.service.cache.BookLookupCoalescer;
+import com.studies.libraryapi.service.cache.CatalogSearchCache;
+import com.studies.libraryapi.service.cache.IsbnIndex;
+import com.studies.libraryapi.service.event.BookUpdated;
+import com.studies.libraryapi.service.event.LibraryEventBus;
 import com.studies.libraryapi.service.impl.BookServiceImpl;
+import com.studies.libraryapi.service.journal.JournalEntry;
+import com.studies.libraryapi.service.journal.MutationJournal;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,10 +25,12 @@ import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,9 +46,25 @@ public class BookServiceTest {
     @MockBean
     BookRespository repository;
 
+    @MockBean
+    TombstoneRepository tombstoneRepository;
+
+    @MockBean
+    LibraryEventBus eventBus;
+
+    @MockBean
+    MutationJournal journal;
+
+    CatalogSearchCache searchCache;
+
+    IsbnIndex isbnIndex;
+
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.searchCache = new CatalogSearchCache(100);
+        this.isbnIndex = new IsbnIndex(repository, 16);
+        this.service = new BookServiceImpl(repository, searchCache, new BookLookupCoalescer(), tombstoneRepository,
+                eventBus, journal, isbnIndex);
     }
 
     @Test
@@ -121,6 +150,24 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Must return a view of a book when to try to find it by id")
+    public void mustGetABookViewByIdTest() {
+
+        //given
+        Long id = 1L;
+        Book book = createAValidBook();
+        book.setId(id);
+        when(repository.findById(id)).thenReturn(Optional.of(book));
+
+        //when
+        Optional<BookView> foundBook = service.getViewById(id);
+
+        //then
+        assertThat(foundBook).contains(BookView.of(book));
+
+    }
+
     @Test
     @DisplayName("Must update a book")
     public void mustUpdateABookTest() {
@@ -169,6 +216,12 @@ public class BookServiceTest {
 
         //then
         verify(repository, times(1)).delete(book);
+        verify(tombstoneRepository, times(1)).save(argThat(tombstone ->
+                tombstone.getRecordType() == RecordType.BOOK && tombstone.getRecordId().equals(1L)));
+        verify(eventBus, times(1)).publishAfterCommit(argThat(event ->
+                ((BookUpdated) event).getKind() == BookUpdated.Kind.DELETED && ((BookUpdated) event).getBookId().equals(1L)));
+        verify(journal, times(1)).recordAfterCommit(argThat(entry ->
+                entry.getType() == JournalEntry.Type.BOOK_DELETED && entry.getRecordId().equals(1L)));
     }
 
     @Test
@@ -194,15 +247,15 @@ public class BookServiceTest {
 
         PageRequest pageRequest = PageRequest.of(0 ,10);
 
-        List<Book> list = Arrays.asList(book);
+        List<BookView> list = Arrays.asList(new BookView(1L, book.getTitle(), book.getAuthor(), book.getIsbn(), true));
 
-        Page<Book> page = new PageImpl<>(list, pageRequest, 1);
+        Page<BookView> page = new PageImpl<>(list, pageRequest, 1);
 
         //when
-        when( repository.findAll( any(Example.class), any(PageRequest.class) ))
+        when( repository.findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) ))
                 .thenReturn(page);
 
-        Page<Book> result = service.find(book, pageRequest);
+        Page<BookView> result = service.find(book, pageRequest, FieldSelection.ALL);
 
         //then
         assertThat(result.getTotalElements()).isEqualTo(1);
@@ -212,14 +265,115 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Must serve a repeated search from the search cache")
+    public void mustServeRepeatedSearchFromCacheTest() {
+
+        //given
+        Book book = createAValidBook();
+        book.setId(1L);
+
+        PageRequest pageRequest = PageRequest.of(0 ,10);
+
+        Page<BookView> page = new PageImpl<>(Arrays.asList(BookView.of(book)), pageRequest, 1);
+
+        when( repository.findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) ))
+                .thenReturn(page);
+        when( repository.findAllById(Arrays.asList(1L)) ).thenReturn(Arrays.asList(book));
+
+        //when
+        service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+        Page<BookView> result = service.find(Book.builder().title("BOOK").build(), pageRequest, FieldSelection.ALL);
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getTitle()).isEqualTo(book.getTitle());
+        assertThat(searchCache.getHits()).isEqualTo(1);
+        verify(repository, times(1)).findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) );
+        verify(repository, never()).findById(anyLong());
+
+    }
+
+    @Test
+    @DisplayName("Must read a cached search back in one query and keep its order")
+    public void mustHydrateCachedSearchInOrderTest() {
+
+        //given
+        Book first = Book.builder().id(2L).title("First").build();
+        Book second = Book.builder().id(1L).title("Second").build();
+
+        PageRequest pageRequest = PageRequest.of(0 ,10);
+
+        when( repository.findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) ))
+                .thenReturn(new PageImpl<>(Arrays.asList(BookView.of(first), BookView.of(second)), pageRequest, 2));
+        when( repository.findAllById(Arrays.asList(2L, 1L)) ).thenReturn(Arrays.asList(second, first));
+
+        //when
+        service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+        Page<BookView> result = service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+
+        //then
+        assertThat(result.getContent()).extracting(BookView::getId).containsExactly(2L, 1L);
+        verify(repository, times(1)).findAllById(Arrays.asList(2L, 1L));
+
+    }
+
+    @Test
+    @DisplayName("Must search the database again when a cached book no longer exists")
+    public void mustSearchAgainWhenCachedBookIsGoneTest() {
+
+        //given
+        Book book = Book.builder().id(1L).title("Book").build();
+
+        PageRequest pageRequest = PageRequest.of(0 ,10);
+
+        when( repository.findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) ))
+                .thenReturn(new PageImpl<>(Arrays.asList(BookView.of(book)), pageRequest, 1));
+        when( repository.findAllById(Arrays.asList(1L)) ).thenReturn(Collections.emptyList());
+
+        //when
+        service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+        service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+
+        //then
+        verify(repository, times(2)).findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) );
+
+    }
+
+    @Test
+    @DisplayName("Must search the database again after a book is written")
+    public void mustNotServeSearchAfterWriteTest() {
+
+        //given
+        Book book = createAValidBook();
+        book.setId(1L);
+
+        PageRequest pageRequest = PageRequest.of(0 ,10);
+
+        when( repository.findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) ))
+                .thenReturn(new PageImpl<>(Arrays.asList(BookView.of(book)), pageRequest, 1));
+        when( repository.save(book) ).thenReturn(book);
+
+        //when
+        service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+        service.update(book);
+        service.find(Book.builder().title("Book").build(), pageRequest, FieldSelection.ALL);
+
+        //then
+        assertThat(searchCache.getHits()).isEqualTo(0);
+        verify(repository, times(2)).findViews( any(Example.class), any(PageRequest.class), any(FieldSelection.class) );
+
+    }
+
     @Test
     @DisplayName("Must return a book when to try to find it by isbn")
     public void mustGetABookByIsbnTest() {
 
         //given
         String isbn = "123";
-        when(repository.findByIsbn(isbn))
-                .thenReturn(Optional.of(Book.builder().id(1L).isbn(isbn).build()));
+        Book found = Book.builder().id(1L).isbn(isbn).build();
+        when(repository.findByIsbn(isbn)).thenReturn(Optional.of(found));
+        when(repository.findById(1L)).thenReturn(Optional.of(found));
 
         //when
         Optional<Book> book = service.getBookByIsbn(isbn);
@@ -233,6 +387,59 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Must find and check isbns through a confirmed isbn index hit once it is loaded")
+    public void mustUseIsbnIndexTest() {
+
+        //given
+        String isbn = "978-0-306-40615-7";
+        Book book = Book.builder().id(1L).title("Book Title").isbn(isbn).isbnNumber(9780306406157L).build();
+        when(repository.findIsbnsAfter(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(repository.save(any(Book.class))).thenReturn(book);
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        isbnIndex.load();
+        service.save(Book.builder().title("Book Title").isbn(isbn).build());
+
+        //when
+        Optional<Book> found = service.getBookByIsbn(isbn);
+        Throwable exception = Assertions.catchThrowable(() -> service.save(Book.builder().title("Book Title").isbn(isbn).build()));
+
+        //then
+        assertThat(found).isPresent();
+        assertThat(found.get().getId()).isEqualTo(1L);
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("ISBN already created");
+        verify(repository, times(1)).existsByIsbn(isbn);
+        verify(repository, never()).findByIsbn(anyString());
+
+    }
+
+    @Test
+    @DisplayName("Must ask the database on an isbn index miss")
+    public void mustConfirmIsbnIndexMissTest() {
+
+        //given
+        String isbn = "9780804429573";
+        Book book = Book.builder().id(2L).title("Book Title").isbn(isbn).isbnNumber(9780804429573L).build();
+        when(repository.findIsbnsAfter(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(repository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+        when(repository.findById(2L)).thenReturn(Optional.of(book));
+        when(repository.existsByIsbn(isbn)).thenReturn(true);
+        isbnIndex.load();
+
+        //when
+        Throwable exception = Assertions.catchThrowable(() -> service.save(Book.builder().title("Book Title").isbn(isbn).build()));
+        Optional<Book> found = service.getBookByIsbn(isbn);
+
+        //then
+        assertThat(found).isPresent();
+        assertThat(found.get().getId()).isEqualTo(2L);
+        assertThat(isbnIndex.idOf(isbn)).contains(2L);
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("ISBN already created");
+        verify(repository, times(1)).existsByIsbn(isbn);
+        verify(repository, times(1)).findByIsbn(isbn);
+
+    }
+
     private Book createAValidBook() {
         return Book.builder()
                 .title("Book Title")
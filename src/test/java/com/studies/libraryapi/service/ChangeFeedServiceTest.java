@@ -0,0 +1,134 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.RecordType;
+import com.studies.libraryapi.model.entity.Tombstone;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.model.repository.TombstoneRepository;
+import com.studies.libraryapi.service.changes.Change;
+import com.studies.libraryapi.service.changes.ChangeCursor;
+import com.studies.libraryapi.service.changes.ChangeFeed;
+import com.studies.libraryapi.service.impl.ChangeFeedServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+public class ChangeFeedServiceTest {
+
+    static LocalDateTime SINCE = LocalDateTime.of(2021, 8, 1, 10, 0);
+
+    @MockBean
+    BookRespository bookRespository;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    TombstoneRepository tombstoneRepository;
+
+    ChangeFeedService service;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ChangeFeedServiceImpl(bookRespository, loanRepository, tombstoneRepository, Duration.ofSeconds(2));
+    }
+
+    @Test
+    @DisplayName("Must merge book, loan and deleted changes in modification order")
+    public void mustMergeChangesInOrderTest() {
+
+        //given
+        Book book = Book.builder().id(1L).lastModified(SINCE.plusSeconds(3)).build();
+        Loan loan = Loan.builder().id(2L).book(book).lastModified(SINCE.plusSeconds(1)).build();
+        Tombstone tombstone = Tombstone.builder().id(3L).recordType(RecordType.BOOK).recordId(9L)
+                .deletedAt(SINCE.plusSeconds(2)).build();
+
+        when( bookRespository.findChangedSince(eq(SINCE), anyLong(), any(LocalDateTime.class), any(Pageable.class)) )
+                .thenReturn(Arrays.asList(book));
+        when( loanRepository.findChangedSince(eq(SINCE), anyLong(), any(LocalDateTime.class), any(Pageable.class)) )
+                .thenReturn(Arrays.asList(loan));
+        when( tombstoneRepository.findDeletedSince(eq(SINCE), anyLong(), any(LocalDateTime.class), any(Pageable.class)) )
+                .thenReturn(Arrays.asList(tombstone));
+
+        //when
+        ChangeFeed feed = service.findChanges(ChangeCursor.since(SINCE), 2);
+
+        //then
+        assertThat(feed.getChanges().stream().map(Change::getRecordId).collect(Collectors.toList()))
+                .containsExactly(2L, 9L);
+        assertThat(feed.getChanges().get(1).isDeleted()).isTrue();
+        assertThat(feed.isMore()).isTrue();
+        assertThat(feed.getNext()).isEqualTo(new ChangeCursor(SINCE.plusSeconds(2), ChangeCursor.Source.TOMBSTONE, 3L));
+
+    }
+
+    @Test
+    @DisplayName("Must keep the cursor when there are no new changes")
+    public void mustKeepCursorWithoutChangesTest() {
+
+        //given
+        ChangeCursor cursor = new ChangeCursor(SINCE, ChangeCursor.Source.LOAN, 5L);
+
+        //when
+        ChangeFeed feed = service.findChanges(cursor, 10);
+
+        //then
+        assertThat(feed.getChanges()).isEmpty();
+        assertThat(feed.isMore()).isFalse();
+        assertThat(feed.getNext()).isEqualTo(cursor);
+
+    }
+
+    @Test
+    @DisplayName("Must resume after the cursor position within the same instant")
+    public void mustResumeAfterCursorTest() {
+
+        //given
+        ChangeCursor cursor = new ChangeCursor(SINCE, ChangeCursor.Source.LOAN, 5L);
+
+        //then
+        assertThat(cursor.afterIdFor(ChangeCursor.Source.BOOK)).isEqualTo(Long.MAX_VALUE);
+        assertThat(cursor.afterIdFor(ChangeCursor.Source.LOAN)).isEqualTo(5L);
+        assertThat(cursor.afterIdFor(ChangeCursor.Source.TOMBSTONE)).isEqualTo(Long.MIN_VALUE);
+
+    }
+
+    @Test
+    @DisplayName("Must encode and decode a change cursor")
+    public void mustEncodeCursorTest() {
+
+        //given
+        ChangeCursor cursor = new ChangeCursor(SINCE.plusNanos(123000), ChangeCursor.Source.TOMBSTONE, 7L);
+
+        //when
+        ChangeCursor decoded = ChangeCursor.decode(cursor.encode());
+        Throwable exception = catchThrowable(() -> ChangeCursor.decode("not-a-cursor"));
+
+        //then
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.model.entity.Customer;
+import com.studies.libraryapi.model.projection.CustomerLoanView;
+import com.studies.libraryapi.model.repository.CustomerRepository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.cache.LoanLimitCache;
+import com.studies.libraryapi.service.customers.CustomerLoanCursor;
+import com.studies.libraryapi.service.customers.CustomerLoanPage;
+import com.studies.libraryapi.service.impl.CustomerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+public class CustomerServiceTest {
+
+    CustomerService service;
+
+    @MockBean
+    CustomerRepository repository;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    LoanLimitCache limitCache;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new CustomerServiceImpl(repository, loanRepository, limitCache);
+    }
+
+    @Test
+    @DisplayName("Must reuse the customer registered with the same email")
+    public void mustReuseExistingCustomerTest() {
+
+        //given
+        Customer customer = Customer.builder().id(1L).name("Someone").email("someone@email.com").build();
+        when(repository.findByEmail("someone@email.com")).thenReturn(Optional.of(customer));
+
+        //when
+        Customer registered = service.register("Someone Else", " Someone@Email.com ");
+
+        //then
+        assertThat(registered).isSameAs(customer);
+        verify(repository, never()).saveAndFlush(any(Customer.class));
+
+    }
+
+    @Test
+    @DisplayName("Must register a new customer with a normalized email")
+    public void mustRegisterNewCustomerTest() {
+
+        //given
+        when(repository.findByEmail("someone@email.com")).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any(Customer.class))).thenAnswer(invocation -> {
+            Customer saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+
+        //when
+        Customer registered = service.register("Someone", "Someone@Email.com");
+
+        //then
+        assertThat(registered.getId()).isEqualTo(1L);
+        assertThat(registered.getName()).isEqualTo("Someone");
+        assertThat(registered.getEmail()).isEqualTo("someone@email.com");
+
+    }
+
+    @Test
+    @DisplayName("Must return the customer inserted by a concurrent registration of the same email")
+    public void mustReadBackConcurrentlyRegisteredCustomerTest() {
+
+        //given
+        Customer customer = Customer.builder().id(1L).name("Someone").email("someone@email.com").build();
+        when(repository.findByEmail("someone@email.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(customer));
+        when(repository.saveAndFlush(any(Customer.class)))
+                .thenThrow(new DataIntegrityViolationException("idx_customer_email"));
+
+        //when
+        Customer registered = service.register("Someone", "someone@email.com");
+
+        //then
+        assertThat(registered).isSameAs(customer);
+
+    }
+
+    @Test
+    @DisplayName("Must fill a loan page with returned loans once the open loans run out")
+    public void mustContinueWithReturnedLoansTest() {
+
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        CustomerLoanView open = new CustomerLoanView(3L, 1L, "123", "Book", now, null, null);
+        CustomerLoanView returned = new CustomerLoanView(2L, 1L, "123", "Book", now.minusDays(1), true, now);
+        CustomerLoanView older = new CustomerLoanView(1L, 1L, "123", "Book", now.minusDays(2), true, now);
+        when(loanRepository.findCustomerLoans(1L, false, null, null, 3))
+                .thenReturn(Collections.singletonList(open));
+        when(loanRepository.findCustomerLoans(1L, true, null, null, 2))
+                .thenReturn(Arrays.asList(returned, older));
+
+        //when
+        CustomerLoanPage page = service.getLoans(1L, CustomerLoanCursor.FIRST, 2);
+
+        //then
+        assertThat(page.getLoans()).containsExactly(open, returned);
+        assertThat(page.getNext()).isEqualTo(CustomerLoanCursor.after(returned));
+        assertThat(page.getNext().getPhase()).isEqualTo(CustomerLoanCursor.Phase.RETURNED);
+
+    }
+
+    @Test
+    @DisplayName("Must not read returned loans while the page is filled by open loans")
+    public void mustStopAtOpenLoansTest() {
+
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        CustomerLoanView newest = new CustomerLoanView(2L, 1L, "123", "Book", now, false, null);
+        CustomerLoanView oldest = new CustomerLoanView(1L, 1L, "123", "Book", now.minusDays(1), false, null);
+        when(loanRepository.findCustomerLoans(1L, false, null, null, 2))
+                .thenReturn(Arrays.asList(newest, oldest));
+
+        //when
+        CustomerLoanPage page = service.getLoans(1L, CustomerLoanCursor.FIRST, 1);
+
+        //then
+        assertThat(page.getLoans()).containsExactly(newest);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(CustomerLoanCursor.decode(page.getNext().encode())).isEqualTo(CustomerLoanCursor.after(newest));
+        verify(loanRepository, never()).findCustomerLoans(eq(1L), eq(true), any(), any(), anyInt());
+
+    }
+
+    @Test
+    @DisplayName("Must lock the customer before repairing its open loan count")
+    public void mustLockCustomerBeforeReconcilingTest() {
+
+        //given
+        when(repository.lockById(1L)).thenReturn(Optional.of(Customer.builder().id(1L).build()));
+        when(repository.reconcileOpenLoans(1L)).thenReturn(1);
+
+        //when
+        int repaired = service.reconcileOpenLoans(1L);
+
+        //then
+        assertThat(repaired).isEqualTo(1);
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).lockById(1L);
+        inOrder.verify(repository).reconcileOpenLoans(1L);
+        verify(limitCache).clearAfterCommit(1L);
+
+    }
+
+    @Test
+    @DisplayName("Must not repair a customer that no longer exists")
+    public void mustNotReconcileMissingCustomerTest() {
+
+        //given
+        when(repository.lockById(1L)).thenReturn(Optional.empty());
+
+        //when
+        int repaired = service.reconcileOpenLoans(1L);
+
+        //then
+        assertThat(repaired).isZero();
+        verify(repository, never()).reconcileOpenLoans(anyLong());
+
+    }
+
+}
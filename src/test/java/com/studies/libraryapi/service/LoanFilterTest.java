@@ -0,0 +1,153 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.api.dto.LoanFilterDTO;
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.CustomerRepository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.cache.LoanLimitCache;
+import com.studies.libraryapi.service.event.LibraryEventBus;
+import com.studies.libraryapi.service.impl.LoanServiceImpl;
+import com.studies.libraryapi.service.journal.MutationJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.studies.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanFilterTest {
+
+    LoanService service;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    BookRespository bookRespository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @MockBean
+    LibraryEventBus eventBus;
+
+    @MockBean
+    MutationJournal journal;
+
+    Loan januaryLoan;
+    Loan februaryLoan;
+    Loan returnedLoan;
+    Loan otherCustomerLoan;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new LoanServiceImpl(repository, bookRespository, customerRepository, eventBus, journal,
+                new LoanLimitCache(Duration.ofMinutes(1), 100), 5);
+
+        Book first = entityManager.persist(createNewBook("111"));
+        Book second = entityManager.persist(createNewBook("222"));
+        januaryLoan = persistLoan(first, "Someone", LocalDateTime.of(2021, 1, 10, 10, 0), false);
+        februaryLoan = persistLoan(second, "Someone", LocalDateTime.of(2021, 2, 10, 10, 0), false);
+        returnedLoan = persistLoan(first, "Someone", LocalDateTime.of(2020, 12, 10, 10, 0), true);
+        otherCustomerLoan = persistLoan(second, "Other", LocalDateTime.of(2021, 1, 20, 10, 0), true);
+    }
+
+    @Test
+    @DisplayName("Must return only the loans inside the date range when no other filter is given")
+    public void findByLoanDateRangeOnlyTest() {
+        //given
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .loanDateFrom(LocalDate.of(2021, 1, 1))
+                .loanDateTo(LocalDate.of(2021, 1, 31))
+                .build();
+
+        //when
+        List<Long> ids = find(filter);
+
+        //then
+        assertThat(ids).containsExactly(januaryLoan.getId(), otherCustomerLoan.getId());
+    }
+
+    @Test
+    @DisplayName("Must return only the returned loans of the customer when both are filtered")
+    public void findByCustomerAndReturnedTest() {
+        //given
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer("Someone").returned(true).build();
+
+        //when
+        List<Long> ids = find(filter);
+
+        //then
+        assertThat(ids).containsExactly(returnedLoan.getId());
+    }
+
+    @Test
+    @DisplayName("Must return loans matching either the isbn or the customer by default")
+    public void findByIsbnOrCustomerTest() {
+        //given
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("222").customer("Someone").build();
+
+        //when
+        List<Long> ids = find(filter);
+
+        //then
+        assertThat(ids).containsExactly(januaryLoan.getId(), februaryLoan.getId(),
+                returnedLoan.getId(), otherCustomerLoan.getId());
+    }
+
+    @Test
+    @DisplayName("Must return loans matching both the isbn and the customer when matchAny is false")
+    public void findByIsbnAndCustomerTest() {
+        //given
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("222").customer("Someone").matchAny(false).build();
+
+        //when
+        List<Long> ids = find(filter);
+
+        //then
+        assertThat(ids).containsExactly(februaryLoan.getId());
+    }
+
+    private List<Long> find(LoanFilterDTO filter) {
+        return service.find(filter, PageRequest.of(0, 10, Sort.by("id")), FieldSelection.ALL)
+                .getContent().stream()
+                .map(LoanView::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Loan persistLoan(Book book, String customer, LocalDateTime loanDate, boolean returned) {
+        return entityManager.persist(Loan.builder()
+                .book(book)
+                .customer(customer)
+                .loanDate(loanDate)
+                .returned(returned)
+                .returnDate(returned ? loanDate.plusDays(7) : null)
+                .build());
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.exception.BusinessException;
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Customer;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.CustomerRepository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.model.repository.LoanSpecifications;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.studies.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "application.loans.max-open-per-customer=3")
+@ActiveProfiles("test")
+public class LoanLimitStressTest {
+
+    private static final int CHECKOUTS = 40;
+    private static final int THREADS = 8;
+
+    @TempDir
+    static Path dataDirectory;
+
+    @DynamicPropertySource
+    static void dataDirectory(DynamicPropertyRegistry registry) {
+        registry.add("application.data-directory", dataDirectory::toString);
+    }
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BookRespository bookRespository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Concurrent checkouts of one customer must never pass the open loan limit")
+    public void concurrentCheckoutsRespectLimitTest() throws Exception {
+
+        //given
+        Customer customer = customerService.register("Someone", "stress-" + System.nanoTime() + "@email.com");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++)
+            books.add(bookRespository.save(createNewBook("stress-" + customer.getId() + "-" + i)));
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        List<Future<?>> checkouts = new ArrayList<>();
+        try {
+            for (Book book : books) {
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.save(createLoan(book, customer));
+                        accepted.incrementAndGet();
+                    } catch (BusinessException e) {
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> checkout : checkouts)
+                checkout.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        List<Loan> openLoans = loanRepository.findAll(LoanSpecifications.customerId(customer.getId())
+                .and(LoanSpecifications.returned(false)));
+        assertThat(accepted.get()).isEqualTo(3);
+        assertThat(refused.get()).isEqualTo(CHECKOUTS - 3);
+        assertThat(openLoans).hasSize(3);
+        assertThat(customerRepository.findById(customer.getId()).get().getOpenLoans()).isEqualTo(3);
+
+        //when
+        Loan returning = loanService.getById(openLoans.get(0).getId()).get();
+        returning.setReturned(true);
+        loanService.update(returning);
+        Book freeBook = books.stream()
+                .filter(book -> openLoans.stream().noneMatch(loan -> loan.getBook().getId().equals(book.getId())))
+                .findFirst()
+                .get();
+        loanService.save(createLoan(freeBook, customer));
+
+        //then
+        assertThat(customerRepository.findById(customer.getId()).get().getOpenLoans()).isEqualTo(3);
+
+    }
+
+    @Test
+    @DisplayName("Must repair a drifted open loan count while checkouts of the customer go on")
+    public void reconcileOpenLoansDuringCheckoutsTest() throws Exception {
+
+        //given
+        Customer customer = customerService.register("Someone", "reconcile-" + System.nanoTime() + "@email.com");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++)
+            books.add(bookRespository.save(createNewBook("reconcile-" + customer.getId() + "-" + i)));
+        loanService.save(createLoan(books.get(0), customer));
+        Customer drifted = customerRepository.findById(customer.getId()).get();
+        drifted.setOpenLoans(0);
+        customerRepository.save(drifted);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (Book book : books.subList(1, books.size())) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.save(createLoan(book, customer));
+                    } catch (BusinessException e) {
+                        // refused at the limit
+                    }
+                    return null;
+                }));
+            }
+            tasks.add(executor.submit(() -> {
+                start.await();
+                for (Long customerId : customerService.getIdsWithStaleOpenLoans())
+                    customerService.reconcileOpenLoans(customerId);
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> task : tasks)
+                task.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        for (Long customerId : customerService.getIdsWithStaleOpenLoans())
+            customerService.reconcileOpenLoans(customerId);
+
+        //then
+        long openLoans = loanRepository.count(LoanSpecifications.customerId(customer.getId())
+                .and(LoanSpecifications.returned(false)));
+        assertThat(customerRepository.findById(customer.getId()).get().getOpenLoans()).isEqualTo((int) openLoans);
+        assertThat(customerService.getIdsWithStaleOpenLoans()).doesNotContain(customer.getId());
+
+    }
+
+    private static Loan createLoan(Book book, Customer customer) {
+        return Loan.builder()
+                .book(book)
+                .customer(customer.getName())
+                .customerEmail(customer.getEmail())
+                .customerId(customer.getId())
+                .loanDate(LocalDateTime.now())
+                .build();
+    }
+
+}
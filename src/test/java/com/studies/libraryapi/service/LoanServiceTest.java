@@ -4,8 +4,21 @@ import com.studies.libraryapi.api.dto.LoanFilterDTO;
 import com.studies.libraryapi.exception.BusinessException;
 import com.studies.libraryapi.model.entity.Book;
 import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.projection.BookView;
+import com.studies.libraryapi.model.projection.FieldSelection;
+import com.studies.libraryapi.model.projection.LoanView;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.CustomerRepository;
 import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.event.LibraryEventBus;
+import com.studies.libraryapi.service.event.LoanCreated;
+import com.studies.libraryapi.service.event.LoanReopened;
+import com.studies.libraryapi.service.event.LoanReturned;
+import com.studies.libraryapi.service.cache.LoanLimitCache;
+import com.studies.libraryapi.service.checkout.CheckoutResult;
 import com.studies.libraryapi.service.impl.LoanServiceImpl;
+import com.studies.libraryapi.service.journal.JournalEntry;
+import com.studies.libraryapi.service.journal.MutationJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,13 +28,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -34,11 +50,27 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookRespository bookRespository;
+
+    @MockBean
+    LibraryEventBus eventBus;
+
+    @MockBean
+    MutationJournal journal;
+
+    @MockBean
+    CustomerRepository customerRepository;
+
+    LoanLimitCache limitCache;
+
     LoanService service;
 
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.limitCache = new LoanLimitCache(Duration.ofMinutes(1), 100);
+        this.service = new LoanServiceImpl(repository, bookRespository, customerRepository, eventBus, journal,
+                limitCache, 2);
     }
 
     @Test
@@ -62,8 +94,9 @@ public class LoanServiceTest {
                 .build();
 
         //when
-        when( repository.existsByBookAndNotReturned(book) ).thenReturn(false);
+        when( bookRespository.existsByIdAndAvailableTrue(book.getId()) ).thenReturn(true);
         when( repository.save(savingLoan) ).thenReturn(savedLoan);
+        when( bookRespository.markAsLoaned(book.getId(), savedLoan.getId()) ).thenReturn(1);
 
         Loan loan = service.save(savingLoan);
 
@@ -73,6 +106,12 @@ public class LoanServiceTest {
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
 
+        verify(bookRespository).markAsLoaned(book.getId(), savedLoan.getId());
+        verify(eventBus).publishAfterCommit(argThat(event ->
+                event instanceof LoanCreated && ((LoanCreated) event).getLoanId().equals(1L)));
+        verify(journal).recordAfterCommit(argThat(entry ->
+                entry.getType() == JournalEntry.Type.LOAN_CREATED && entry.getRecordId().equals(1L)));
+
     }
 
     @Test
@@ -89,7 +128,7 @@ public class LoanServiceTest {
                 .build();
 
         //when
-        when( repository.existsByBookAndNotReturned(book) ).thenReturn(true);
+        when( bookRespository.existsByIdAndAvailableTrue(book.getId()) ).thenReturn(false);
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
@@ -102,6 +141,115 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Must throw a business exception when another checkout takes the book first")
+    public void mustNotSaveLoanWhenBookIsTakenConcurrentlyTest() {
+        //given
+        Loan savingLoan = createLoan();
+        Loan savedLoan = createLoan();
+        savedLoan.setId(1L);
+
+        //when
+        when( bookRespository.existsByIdAndAvailableTrue(1L) ).thenReturn(true);
+        when( repository.save(savingLoan) ).thenReturn(savedLoan);
+        when( bookRespository.markAsLoaned(1L, 1L) ).thenReturn(0);
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        //then
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already loaned");
+
+    }
+
+    @Test
+    @DisplayName("Must refuse checkouts over the customer's open loan limit, then without the database")
+    public void mustNotSaveLoanOverCustomerLimitTest() {
+        //given
+        Loan savingLoan = createLoan();
+        savingLoan.setCustomerId(7L);
+
+        //when
+        when( bookRespository.existsByIdAndAvailableTrue(1L) ).thenReturn(true);
+        when( customerRepository.reserveLoan(7L, 2) ).thenReturn(0);
+
+        Throwable first = catchThrowable(() -> service.save(savingLoan));
+        Throwable second = catchThrowable(() -> service.save(savingLoan));
+
+        //then
+        assertThat(first)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Customer already has 2 open loans");
+        assertThat(second).isInstanceOf(BusinessException.class);
+        assertThat(limitCache.isAtLimit(7L)).isTrue();
+        verify(customerRepository, times(1)).reserveLoan(7L, 2);
+        verify(repository, never()).save(savingLoan);
+
+    }
+
+    @Test
+    @DisplayName("Must give the customer's loan slot back when a loan is returned")
+    public void mustReleaseCustomerLoanOnReturnTest() {
+        //given
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setCustomerId(7L);
+        loan.setReturned(true);
+        limitCache.markAtLimit(7L);
+
+        //when
+        when( repository.save(loan) ).thenReturn( loan );
+        when( bookRespository.markAsReturned(1L, 1L) ).thenReturn(1);
+        service.update(loan);
+
+        //then
+        verify(customerRepository).releaseLoan(7L);
+        assertThat(limitCache.isAtLimit(7L)).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("Must save a batch of checkouts in one call, refusing each failed checkout on its own")
+    public void mustSaveCheckoutBatchTest() {
+        //given
+        Loan first = createLoan();
+        Loan sameBook = createLoan();
+        Loan overLimit = createLoan();
+        overLimit.setBook(Book.builder().id(2L).build());
+        overLimit.setCustomerId(7L);
+        Loan takenMeanwhile = createLoan();
+        takenMeanwhile.setBook(Book.builder().id(3L).build());
+        takenMeanwhile.setCustomerId(8L);
+        AtomicLong ids = new AtomicLong();
+
+        //when
+        when( bookRespository.findAvailableIds(anyCollection()) ).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when( customerRepository.reserveLoan(7L, 2) ).thenReturn(0);
+        when( customerRepository.reserveLoan(8L, 2) ).thenReturn(1);
+        when( repository.save(any(Loan.class)) ).thenAnswer(invocation -> {
+            Loan loan = invocation.getArgument(0);
+            loan.setId(ids.incrementAndGet());
+            return loan;
+        });
+        when( bookRespository.markAsLoaned(1L, 1L) ).thenReturn(1);
+        when( bookRespository.markAsLoaned(3L, 2L) ).thenReturn(0);
+
+        List<CheckoutResult> results = service.saveAll(Arrays.asList(first, sameBook, overLimit, takenMeanwhile));
+
+        //then
+        assertThat(results).extracting(CheckoutResult::isSuccess).containsExactly(true, false, false, false);
+        assertThat(results.get(0).getLoan()).isSameAs(first);
+        assertThat(results.get(1).getError()).hasMessage("Book already loaned");
+        assertThat(results.get(2).getError()).hasMessage("Customer already has 2 open loans");
+        assertThat(results.get(3).getError()).hasMessage("Book already loaned");
+        verify(bookRespository, times(1)).findAvailableIds(anyCollection());
+        verify(repository).delete(takenMeanwhile);
+        verify(customerRepository).releaseLoan(8L);
+        verify(eventBus, times(1)).publishAfterCommit(any(LoanCreated.class));
+
+    }
+
     @Test
     @DisplayName("Must get informations about a loan by id")
     public void mustGetLoanDetailsTest() {
@@ -124,6 +272,73 @@ public class LoanServiceTest {
         Mockito.verify( repository ).findById(id);
     }
 
+    @Test
+    @DisplayName("Must take a customer's loan slot when a returned loan is opened again")
+    public void mustReserveCustomerLoanOnReopenTest() {
+        //given
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setCustomerId(7L);
+        loan.setReturned(false);
+
+        //when
+        when( bookRespository.existsByIdAndActiveLoanId(1L, 1L) ).thenReturn(false);
+        when( customerRepository.reserveLoan(7L, 2) ).thenReturn(1);
+        when( repository.save(loan) ).thenReturn( loan );
+        when( bookRespository.markAsLoaned(1L, 1L) ).thenReturn(1);
+        service.update(loan);
+
+        //then
+        verify(customerRepository).reserveLoan(7L, 2);
+        verify(bookRespository).markAsLoaned(1L, 1L);
+        verify(eventBus).publishAfterCommit(any(LoanReopened.class));
+
+    }
+
+    @Test
+    @DisplayName("Must refuse to open a returned loan again over the customer's open loan limit")
+    public void mustNotReopenLoanOverCustomerLimitTest() {
+        //given
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setCustomerId(7L);
+        loan.setReturned(false);
+
+        //when
+        when( bookRespository.existsByIdAndActiveLoanId(1L, 1L) ).thenReturn(false);
+        when( customerRepository.reserveLoan(7L, 2) ).thenReturn(0);
+        Throwable exception = catchThrowable(() -> service.update(loan));
+
+        //then
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Customer already has 2 open loans");
+        verify(repository, never()).save(loan);
+        verify(bookRespository, never()).markAsLoaned(1L, 1L);
+
+    }
+
+    @Test
+    @DisplayName("Must not take another slot when a loan that is still open is updated")
+    public void mustNotReserveCustomerLoanForOpenLoanTest() {
+        //given
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setCustomerId(7L);
+        loan.setReturned(false);
+
+        //when
+        when( bookRespository.existsByIdAndActiveLoanId(1L, 1L) ).thenReturn(true);
+        when( repository.save(loan) ).thenReturn( loan );
+        when( bookRespository.markAsLoaned(1L, 1L) ).thenReturn(1);
+        service.update(loan);
+
+        //then
+        verify(customerRepository, never()).reserveLoan(7L, 2);
+        verify(eventBus, never()).publishAfterCommit(any(LoanReopened.class));
+
+    }
+
     @Test
     @DisplayName("Must update a loan")
     public void mustUpdateLoanTest() {
@@ -134,12 +349,36 @@ public class LoanServiceTest {
 
         //when
         Mockito.when( repository.save(loan) ).thenReturn( loan );
+        Mockito.when( bookRespository.markAsReturned(loan.getBook().getId(), loan.getId()) ).thenReturn(1);
         Loan updatedLoan = service.update(loan);
 
         //then
         assertThat(updatedLoan.getReturned()).isTrue();
 
         Mockito.verify( repository ).save(loan);
+        Mockito.verify( bookRespository ).markAsReturned(loan.getBook().getId(), loan.getId());
+        Mockito.verify( eventBus ).publishAfterCommit(Mockito.any(LoanReturned.class));
+    }
+
+    @Test
+    @DisplayName("Must repair books whose availability drifted from their loans")
+    public void mustReconcileBookAvailabilityTest() {
+        //given
+        Loan untrackedLoan = createLoan();
+        untrackedLoan.setId(2L);
+
+        //when
+        when( bookRespository.findIdsWithStaleAvailability() ).thenReturn(Arrays.asList(3L));
+        when( bookRespository.markAsAvailable(3L) ).thenReturn(1);
+        when( repository.findNotReturnedUntrackedByBook() ).thenReturn(Arrays.asList(untrackedLoan));
+        when( bookRespository.assignActiveLoan(1L, 2L) ).thenReturn(1);
+
+        int repaired = service.reconcileBookAvailability();
+
+        //then
+        assertThat(repaired).isEqualTo(2);
+        verify(bookRespository).markAsAvailable(3L);
+        verify(bookRespository).assignActiveLoan(1L, 2L);
     }
 
     @Test
@@ -149,23 +388,22 @@ public class LoanServiceTest {
         //given
         LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Someone").isbn("123").build();
 
-        Loan loan = createLoan();
-        loan.setId(1L);
+        LoanView loan = createLoanView();
 
         PageRequest pageRequest = PageRequest.of(0 ,10);
 
-        List<Loan> list = Arrays.asList(loan);
+        List<LoanView> list = Arrays.asList(loan);
 
-        Page<Loan> page = new PageImpl<>(list, pageRequest, 1);
+        Page<LoanView> page = new PageImpl<>(list, pageRequest, 1);
 
         //when
-        when( repository.findByBookIsbnOrCustomer(
-                Mockito.anyString(),
-                Mockito.anyString(),
-                Mockito.any(PageRequest.class)))
+        when( repository.findViewsWithArchived(
+                Mockito.any(Specification.class),
+                Mockito.any(PageRequest.class),
+                Mockito.any(FieldSelection.class)))
                 .thenReturn(page);
 
-        Page<Loan> result = service.find(loanFilterDTO, pageRequest);
+        Page<LoanView> result = service.find(loanFilterDTO, pageRequest, FieldSelection.ALL);
 
         //then
         assertThat(result.getTotalElements()).isEqualTo(1);
@@ -175,6 +413,31 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Must not read the archive when only open loans are requested")
+    public void mustNotFindArchivedLoansWhenNotReturnedTest() {
+
+        //given
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Someone").returned(false).build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        //when
+        when( repository.findViews(Mockito.any(Specification.class), Mockito.any(PageRequest.class), Mockito.any(FieldSelection.class)) )
+                .thenReturn(new PageImpl<>(Arrays.asList(createLoanView()), pageRequest, 1));
+
+        service.find(loanFilterDTO, pageRequest, FieldSelection.ALL);
+
+        //then
+        verify(repository, never()).findViewsWithArchived(Mockito.any(Specification.class), Mockito.any(PageRequest.class),
+                Mockito.any(FieldSelection.class));
+
+    }
+
+    public static LoanView createLoanView() {
+        BookView book = new BookView(1L, "Book Title", "Book Author", "123", false);
+        return new LoanView(1L, "Someone", "someone@email.com", book);
+    }
+
     public static Loan createLoan() {
         Book book = Book.builder().id(1L).build();
         String customer = "Someone";
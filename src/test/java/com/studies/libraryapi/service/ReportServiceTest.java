@@ -0,0 +1,171 @@
+package com.studies.libraryapi.service;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.CirculationRollup;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.entity.RolledUpLoan;
+import com.studies.libraryapi.model.entity.RollupDimension;
+import com.studies.libraryapi.model.entity.RollupWatermark;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.model.repository.CirculationRollupRepository;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.model.repository.RolledUpLoanRepository;
+import com.studies.libraryapi.model.repository.RollupWatermarkRepository;
+import com.studies.libraryapi.service.history.HistoryCount;
+import com.studies.libraryapi.service.history.LoanHistoryStore;
+import com.studies.libraryapi.service.impl.ReportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+public class ReportServiceTest {
+
+    static LocalDateTime LOAN_DATE = LocalDateTime.of(2021, 8, 1, 10, 0);
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    BookRespository bookRespository;
+
+    @MockBean
+    CirculationRollupRepository rollupRepository;
+
+    @MockBean
+    RolledUpLoanRepository rolledUpLoanRepository;
+
+    @MockBean
+    RollupWatermarkRepository watermarkRepository;
+
+    @MockBean
+    LoanHistoryStore historyStore;
+
+    ReportService service;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ReportServiceImpl(loanRepository, bookRespository, rollupRepository, rolledUpLoanRepository,
+                watermarkRepository, historyStore, Duration.ofSeconds(2), 100);
+        when( rollupRepository.findByDimensionAndDimensionValueAndPeriod(any(), any(), any()) )
+                .thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Must add changed loans to the rollups and advance the watermark")
+    public void mustRollUpChangedLoansTest() {
+
+        //given
+        Loan open = createLoan(1L, false);
+        Loan returned = createLoan(2L, true);
+        returned.setReturnDate(LOAN_DATE.plusDays(2));
+        when( watermarkRepository.findById(anyString()) ).thenReturn(Optional.empty());
+        when( loanRepository.findChangedSince(eq(RollupWatermark.START), anyLong(), any(LocalDateTime.class), any(Pageable.class)) )
+                .thenReturn(Arrays.asList(open, returned));
+
+        //when
+        int rolledUp = service.rollUpChangedLoans();
+
+        //then
+        assertThat(rolledUp).isEqualTo(2);
+        CirculationRollup checkoutDay = savedRollup(RollupDimension.TOTAL, "", LOAN_DATE.toLocalDate());
+        assertThat(checkoutDay.getLoans()).isEqualTo(2);
+        assertThat(checkoutDay.getReturns()).isZero();
+        CirculationRollup returnDay = savedRollup(RollupDimension.AUTHOR, "Book Author", LOAN_DATE.toLocalDate().plusDays(2));
+        assertThat(returnDay.getReturns()).isEqualTo(1);
+        assertThat(returnDay.getLoanSeconds()).isEqualTo(Duration.ofDays(2).getSeconds());
+        verify(watermarkRepository).save(argThat(watermark ->
+                watermark.getLastId().equals(2L) && watermark.getLastModified().equals(returned.getLastModified())));
+
+    }
+
+    @Test
+    @DisplayName("Must count only the return of a loan already rolled up")
+    public void mustNotCountLoanTwiceTest() {
+
+        //given
+        Loan returned = createLoan(1L, true);
+        when( watermarkRepository.findById(anyString()) ).thenReturn(Optional.of(RollupWatermark.start("circulation")));
+        when( loanRepository.findChangedSince(any(LocalDateTime.class), anyLong(), any(LocalDateTime.class), any(Pageable.class)) )
+                .thenReturn(Arrays.asList(returned));
+        when( rolledUpLoanRepository.findAllById(anyIterable()) ).thenReturn(Arrays.asList(new RolledUpLoan(1L, false)));
+
+        //when
+        service.rollUpChangedLoans();
+
+        //then
+        CirculationRollup day = savedRollup(RollupDimension.CUSTOMER, "Someone", LOAN_DATE.toLocalDate());
+        assertThat(day.getLoans()).isZero();
+        assertThat(day.getReturns()).isEqualTo(1);
+        assertThat(day.getTimedReturns()).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Must merge the loan history of books by the same author")
+    public void mustFindLoanHistoryByAuthorTest() {
+
+        //given
+        YearMonth month = YearMonth.of(2021, 8);
+        when( historyStore.countByBook(month, month) ).thenReturn(Arrays.asList(
+                new HistoryCount<>(1L, month, 2, 100),
+                new HistoryCount<>(2L, month, 3, 200)));
+        when( bookRespository.findAllById(anyIterable()) ).thenReturn(Arrays.asList(
+                Book.builder().id(1L).author("Book Author").build(),
+                Book.builder().id(2L).author("Book Author").build()));
+
+        //when
+        List<HistoryCount<String>> history = service.findLoanHistory(ReportService.HistoryGrouping.AUTHOR, month, month);
+
+        //then
+        assertThat(history).containsExactly(new HistoryCount<>("Book Author", month, 5, 300));
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private CirculationRollup savedRollup(RollupDimension dimension, String value, LocalDate period) {
+        ArgumentCaptor<Iterable<CirculationRollup>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(rollupRepository).saveAll(saved.capture());
+        List<CirculationRollup> rollups = new ArrayList<>();
+        saved.getValue().forEach(rollups::add);
+        return rollups.stream()
+                .filter(rollup -> rollup.getDimension() == dimension && rollup.getDimensionValue().equals(value)
+                        && rollup.getPeriod().equals(period))
+                .findFirst()
+                .get();
+    }
+
+    private Loan createLoan(Long id, boolean returned) {
+        return Loan.builder()
+                .id(id)
+                .book(Book.builder().id(1L).author("Book Author").build())
+                .customer("Someone")
+                .loanDate(LOAN_DATE)
+                .returned(returned)
+                .lastModified(LOAN_DATE.plusSeconds(id))
+                .build();
+    }
+
+}
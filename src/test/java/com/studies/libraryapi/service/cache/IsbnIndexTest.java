@@ -0,0 +1,52 @@
+package com.studies.libraryapi.service.cache;
+
+import com.studies.libraryapi.model.projection.BookIsbn;
+import com.studies.libraryapi.model.repository.BookRespository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+public class IsbnIndexTest {
+
+    @MockBean
+    BookRespository repository;
+
+    @Test
+    @DisplayName("Must load isbns from the database and find books by any spelling of them")
+    public void mustLoadAndFindBooksTest() {
+
+        //given
+        IsbnIndex index = new IsbnIndex(repository, 16);
+        when(repository.findIsbnsAfter(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(
+                new BookIsbn(1L, "978-0-306-40615-7"), new BookIsbn(2L, "123")));
+        when(repository.findIsbnsAfter(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        //when
+        boolean coveredBeforeLoad = index.covers("9780306406157");
+        index.load();
+        index.put("080442957X", 3L);
+
+        //then
+        assertThat(coveredBeforeLoad).isFalse();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.covers("123")).isFalse();
+        assertThat(index.idOf("0306406152")).contains(1L);
+        assertThat(index.idOf("9780804429573")).contains(3L);
+        assertThat(index.covers("9791090636071")).isTrue();
+        assertThat(index.idOf("9791090636071")).isEmpty();
+
+    }
+
+}
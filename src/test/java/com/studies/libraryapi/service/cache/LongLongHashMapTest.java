@@ -0,0 +1,79 @@
+package com.studies.libraryapi.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@Slf4j
+public class LongLongHashMapTest {
+
+    @Test
+    @DisplayName("Must behave like a hash map through puts, removes and resizes")
+    public void mustMatchHashMapTest() {
+
+        //given
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        //when
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key) != null);
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+
+        //then
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key, -1)).isEqualTo(expected.getOrDefault(key, -1L));
+            assertThat(map.containsKey(key)).isEqualTo(expected.containsKey(key));
+        }
+        assertThat(catchThrowable(() -> map.put(0, 1))).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+    @Test
+    @DisplayName("Must hold packed isbns in 20 bytes each when sized for them, 30 when grown, and report lookup rate")
+    public void mustStayCompactTest() {
+
+        //given
+        int books = 1_000_000;
+        LongLongHashMap sized = new LongLongHashMap(books);
+        LongLongHashMap grown = new LongLongHashMap(16);
+
+        //when
+        for (int id = 1; id <= books; id++) {
+            sized.put(9780000000000L + id * 10L, id);
+            grown.put(9780000000000L + id * 10L, id);
+        }
+        long found = 0;
+        long start = System.nanoTime();
+        for (int id = 1; id <= books; id++)
+            found += sized.get(9780000000000L + id * 10L, 0) == id ? 1 : 0;
+        long nanos = System.nanoTime() - start;
+
+        //then
+        double sizedBytes = 16.0 * sized.capacity() / books;
+        double grownBytes = 16.0 * grown.capacity() / books;
+        log.info("{} bytes per entry sized, {} grown, {} lookups/s", sizedBytes, grownBytes,
+                books * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos));
+        assertThat(found).isEqualTo(books);
+        assertThat(sizedBytes).isLessThanOrEqualTo(20.0);
+        assertThat(grownBytes).isLessThanOrEqualTo(30.0);
+
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.studies.libraryapi.service.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Must share one load between concurrent calls for the same key")
+    public void mustCollapseConcurrentCallsTest() throws Exception {
+
+        //given
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        //when
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            results.add(executor.submit(() -> flight.execute(1L, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "Book Title";
+            })));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 0; i < 4; i++)
+                results.add(executor.submit(() -> flight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    return "Other";
+                })));
+            while (flight.getCollapsed() < 4)
+                Thread.sleep(5);
+            release.countDown();
+
+            //then
+            for (Future<String> result : results)
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Book Title");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.getCalls()).isEqualTo(5);
+        assertThat(flight.getCollapsed()).isEqualTo(4);
+        assertThat(flight.getInFlight()).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Must load again once the previous call has finished")
+    public void mustNotReuseFinishedCallTest() {
+
+        //given
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        flight.execute(1L, () -> "first" + loads.incrementAndGet());
+        String second = flight.execute(1L, () -> "second" + loads.incrementAndGet());
+
+        //then
+        assertThat(second).isEqualTo("second2");
+        assertThat(flight.getCollapsed()).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Must throw the loader error and not keep the failed call")
+    public void mustPropagateLoaderErrorTest() {
+
+        //given
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+
+        //when
+        Throwable exception = catchThrowable(
+                () -> flight.execute(1L, () -> { throw new IllegalStateException("Database down"); }));
+
+        //then
+        assertThat(exception).isInstanceOf(IllegalStateException.class).hasMessage("Database down");
+        assertThat(flight.getInFlight()).isZero();
+        assertThat(flight.execute(1L, () -> "Book Title")).isEqualTo("Book Title");
+
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+package com.studies.libraryapi.service.checkout;
+
+import com.studies.libraryapi.exception.BusinessException;
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import com.studies.libraryapi.model.repository.BookRespository;
+import com.studies.libraryapi.service.LoanService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.studies.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+public class CheckoutBatcherTest {
+
+    private static final int THREADS = 16;
+    private static final int CHECKOUTS_PER_THREAD = 50;
+
+    @TempDir
+    static Path dataDirectory;
+
+    @DynamicPropertySource
+    static void dataDirectory(DynamicPropertyRegistry registry) {
+        registry.add("application.data-directory", dataDirectory::toString);
+    }
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRespository bookRespository;
+
+    @Test
+    @DisplayName("Must give each caller of a batch its own result when they check out the same book")
+    public void mustRefuseSecondCheckoutOfBookInBatchTest() throws Exception {
+
+        //given
+        Book book = bookRespository.save(createNewBook("batch-" + System.nanoTime()));
+        CheckoutBatcher batcher = new CheckoutBatcher(loanService, true, Duration.ofMillis(200), 10, Duration.ofMinutes(1));
+        batcher.start();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        List<Object> outcomes = new ArrayList<>();
+        try {
+            List<Future<Object>> checkouts = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                checkouts.add(executor.submit(() -> {
+                    try {
+                        return batcher.checkout(createLoan(book));
+                    } catch (BusinessException e) {
+                        return e;
+                    }
+                }));
+            }
+            for (Future<Object> checkout : checkouts)
+                outcomes.add(checkout.get(1, TimeUnit.MINUTES));
+        } finally {
+            executor.shutdownNow();
+            batcher.stop();
+        }
+
+        //then
+        assertThat(outcomes).filteredOn(outcome -> outcome instanceof Loan).hasSize(1);
+        assertThat(outcomes).filteredOn(outcome -> outcome instanceof BusinessException)
+                .extracting(outcome -> ((BusinessException) outcome).getMessage())
+                .containsExactly("Book already loaned");
+        assertThat(bookRespository.existsByIdAndAvailableTrue(book.getId())).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("Must save every checkout that races with stopping the batcher")
+    public void mustSaveCheckoutsRacingWithStopTest() throws Exception {
+
+        //given
+        CheckoutBatcher batcher = new CheckoutBatcher(loanService, true, Duration.ofMillis(2), 100, Duration.ofMinutes(1));
+        batcher.start();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++)
+            books.add(bookRespository.save(createNewBook("stop-" + System.nanoTime() + "-" + i)));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        List<Loan> loans = new ArrayList<>();
+        try {
+            List<Future<Loan>> checkouts = new ArrayList<>();
+            for (Book book : books) {
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    return batcher.checkout(createLoan(book));
+                }));
+            }
+            start.countDown();
+            batcher.stop();
+            for (Future<Loan> checkout : checkouts)
+                loans.add(checkout.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        assertThat(batcher.isRunning()).isFalse();
+        assertThat(loans).hasSize(books.size()).allMatch(loan -> loan.getId() != null);
+
+    }
+
+    @Test
+    @DisplayName("Must wait for the outcome of a timed out checkout that is already in a batch")
+    public void mustWaitForBatchedCheckoutAfterTimeoutTest() throws Exception {
+
+        //given
+        LoanService slowService = Mockito.mock(LoanService.class);
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(slowService.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            firstBatchStarted.countDown();
+            release.await();
+            List<Loan> loans = invocation.getArgument(0);
+            loans.forEach(loan -> loan.setId(1L));
+            return Arrays.asList(CheckoutResult.of(loans.get(0)));
+        });
+        CheckoutBatcher batcher = new CheckoutBatcher(slowService, true, Duration.ofMillis(1), 1, Duration.ofMillis(50));
+        batcher.start();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<Loan> batched;
+        Object queued;
+        try {
+            batched = executor.submit(() -> batcher.checkout(Loan.builder().customer("Someone").build()));
+            firstBatchStarted.await(1, TimeUnit.MINUTES);
+            Future<Object> waiting = executor.submit(() -> {
+                try {
+                    return batcher.checkout(Loan.builder().customer("Other").build());
+                } catch (ResponseStatusException e) {
+                    return e;
+                }
+            });
+            queued = waiting.get(1, TimeUnit.MINUTES);
+            Thread.sleep(100);
+            release.countDown();
+            batched.get(1, TimeUnit.MINUTES);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            batcher.stop();
+        }
+
+        //then
+        assertThat(batched.get().getId()).isEqualTo(1L);
+        assertThat(queued).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        Mockito.verify(slowService, Mockito.times(1)).saveAll(Mockito.anyList());
+        Mockito.verify(slowService, Mockito.never()).save(Mockito.any(Loan.class));
+
+    }
+
+    @Test
+    @DisplayName("Must check out concurrently through group commit and report throughput and p99 against single commits")
+    public void mustCompareGroupCommitWithSingleCommitsTest() throws Exception {
+
+        //given
+        CheckoutBatcher batcher = new CheckoutBatcher(loanService, true, Duration.ofMillis(2), 100, Duration.ofMinutes(1));
+        batcher.start();
+
+        //when
+        long[] single;
+        long[] grouped;
+        try {
+            single = checkoutConcurrently("single", loanService::save);
+            grouped = checkoutConcurrently("grouped", batcher::checkout);
+        } finally {
+            batcher.stop();
+        }
+
+        //then
+        log.info("single commits: {} checkouts/s, p99 {} us; group commit: {} checkouts/s, p99 {} us",
+                perSecond(single), p99Micros(single), perSecond(grouped), p99Micros(grouped));
+        assertThat(grouped).hasSize(THREADS * CHECKOUTS_PER_THREAD + 1).doesNotContain(-1L);
+        assertThat(single).doesNotContain(-1L);
+
+    }
+
+    /*
+     * Returns each checkout's latency in nanoseconds, or -1 when it was refused, followed by
+     * the wall time of the whole run as the last element.
+     */
+    private long[] checkoutConcurrently(String run, Function<Loan, Loan> checkout) throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < THREADS * CHECKOUTS_PER_THREAD; i++)
+            books.add(bookRespository.save(createNewBook(run + "-" + System.nanoTime() + "-" + i)));
+        long[] latencies = new long[books.size() + 1];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int first = thread * CHECKOUTS_PER_THREAD;
+                threads.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + CHECKOUTS_PER_THREAD; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            checkout.apply(createLoan(books.get(i)));
+                            latencies[i] = System.nanoTime() - begin;
+                        } catch (BusinessException e) {
+                            latencies[i] = -1;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> thread : threads)
+                thread.get(2, TimeUnit.MINUTES);
+            latencies[books.size()] = System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+        return latencies;
+    }
+
+    private static long perSecond(long[] run) {
+        return (long) (run.length - 1) * TimeUnit.SECONDS.toNanos(1) / Math.max(1, run[run.length - 1]);
+    }
+
+    private static long p99Micros(long[] run) {
+        long[] latencies = Arrays.copyOf(run, run.length - 1);
+        Arrays.sort(latencies);
+        return TimeUnit.NANOSECONDS.toMicros(latencies[(int) Math.ceil(latencies.length * 0.99) - 1]);
+    }
+
+    private static Loan createLoan(Book book) {
+        return Loan.builder()
+                .book(book)
+                .customer("Someone")
+                .loanDate(LocalDateTime.now())
+                .build();
+    }
+
+}
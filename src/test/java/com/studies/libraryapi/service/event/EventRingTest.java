@@ -0,0 +1,128 @@
+package com.studies.libraryapi.service.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class EventRingTest {
+
+    @Test
+    @DisplayName("Must hand out events in publication order")
+    public void mustDrainInOrderTest() {
+
+        //given
+        EventRing<Integer> ring = new EventRing<>(8);
+        for (int i = 0; i < 5; i++)
+            ring.offer(i);
+
+        //when
+        List<Integer> batch = new ArrayList<>();
+        int drained = ring.drainTo(batch, 3);
+
+        //then
+        assertThat(drained).isEqualTo(3);
+        assertThat(batch).containsExactly(0, 1, 2);
+        assertThat(ring.size()).isEqualTo(2);
+
+    }
+
+    @Test
+    @DisplayName("Must refuse events when the ring is full")
+    public void mustRefuseWhenFullTest() {
+
+        //given
+        EventRing<Integer> ring = new EventRing<>(4);
+        for (int i = 0; i < 4; i++)
+            assertThat(ring.offer(i)).isTrue();
+
+        //when
+        boolean accepted = ring.offer(4);
+        ring.drainTo(new ArrayList<>(), 1);
+        boolean acceptedAfterDrain = ring.offer(5);
+
+        //then
+        assertThat(accepted).isFalse();
+        assertThat(acceptedAfterDrain).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("Must only accept a power of two capacity")
+    public void mustRejectInvalidCapacityTest() {
+
+        //when
+        Throwable exception = catchThrowable(() -> new EventRing<Integer>(6));
+
+        //then
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+    @Test
+    @DisplayName("Must deliver every event from concurrent producers")
+    public void mustDeliverFromConcurrentProducersTest() throws Exception {
+
+        //given
+        int producers = 4;
+        int perProducer = 250_000;
+        EventRing<long[]> ring = new EventRing<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+
+        //when
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < perProducer; i++) {
+                    long[] event = {producer, i};
+                    while (!ring.offer(event))
+                        Thread.onSpinWait();
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long received = 0;
+        boolean ordered = true;
+        List<long[]> batch = new ArrayList<>(256);
+        while (received < (long) producers * perProducer && System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(30)) {
+            if (ring.drainTo(batch, 256) == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            for (long[] event : batch) {
+                int producer = (int) event[0];
+                ordered &= event[1] == lastSeen[producer] + 1;
+                lastSeen[producer] = event[1];
+            }
+            received += batch.size();
+            batch.clear();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdownNow();
+
+        //then
+        assertThat(received)
+                .as("%d events in %d ms (%d events/s)", received, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        received * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed))
+                .isEqualTo((long) producers * perProducer);
+        assertThat(ordered).isTrue();
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.studies.libraryapi.service.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LibraryEventBusTest {
+
+    LibraryEventBus bus;
+
+    @AfterEach
+    public void tearDown() {
+        if (bus != null)
+            bus.stop();
+    }
+
+    @Test
+    @DisplayName("Must deliver published events to every listener in order")
+    public void mustDeliverEventsTest() throws Exception {
+
+        //given
+        List<LibraryEvent> first = new CopyOnWriteArrayList<>();
+        List<LibraryEvent> second = new CopyOnWriteArrayList<>();
+        bus = createBus(16, first::addAll, second::addAll);
+        bus.start();
+        LoanReturned returned = new LoanReturned(1L, 1L, "Someone", null, null);
+        BookUpdated updated = new BookUpdated(1L, "123", BookUpdated.Kind.UPDATED, null);
+
+        //when
+        bus.publish(returned);
+        bus.publish(updated);
+        waitUntilDelivered(2);
+
+        //then
+        assertThat(first).containsExactly(returned, updated);
+        assertThat(second).containsExactly(returned, updated);
+
+    }
+
+    @Test
+    @DisplayName("Must keep delivering when a listener fails")
+    public void mustIsolateFailingListenerTest() throws Exception {
+
+        //given
+        List<LibraryEvent> received = new CopyOnWriteArrayList<>();
+        bus = createBus(16, events -> { throw new IllegalStateException("listener down"); }, received::addAll);
+        bus.start();
+
+        //when
+        bus.publish(new BookUpdated(1L, "123", BookUpdated.Kind.CREATED, null));
+        waitUntilDelivered(1);
+
+        //then
+        assertThat(received).hasSize(1);
+
+    }
+
+    @Test
+    @DisplayName("Must drop and count events when the ring is full")
+    public void mustDropWhenFullTest() {
+
+        //given
+        bus = createBus(2);
+
+        //when
+        for (int i = 0; i < 3; i++)
+            bus.publish(new BookUpdated((long) i, "123", BookUpdated.Kind.UPDATED, null));
+
+        //then
+        assertThat(bus.getPublished()).isEqualTo(2);
+        assertThat(bus.getDropped()).isEqualTo(1);
+
+    }
+
+    private LibraryEventBus createBus(int ringSize, LibraryEventListener... listeners) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        for (int i = 0; i < listeners.length; i++)
+            beanFactory.addBean("listener" + i, listeners[i]);
+        return new LibraryEventBus(ringSize, 8, beanFactory.getBeanProvider(LibraryEventListener.class));
+    }
+
+    private void waitUntilDelivered(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bus.getDelivered() < count && System.nanoTime() < deadline)
+            Thread.sleep(5);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.studies.libraryapi.service.history;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LoanHistoryStoreTest {
+
+    static LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Must count loans per book and month like an exact count across segments")
+    public void mustCountLoansPerBookAndMonthTest() throws Exception {
+
+        //given
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(3);
+
+        //when
+        try (LoanHistoryStore store = new LoanHistoryStore(directory, 1000)) {
+            for (int i = 0; i < 10_000; i++) {
+                long bookId = 1 + random.nextInt(20);
+                LocalDateTime loanDate = START.plusMinutes(random.nextInt(60 * 24 * 365));
+                store.append(bookId, "Customer " + random.nextInt(100), loanDate, loanDate.plusDays(2));
+                if (loanDate.getMonthValue() >= 3 && loanDate.getMonthValue() <= 5)
+                    exact.merge(bookId + "@" + YearMonth.from(loanDate), 1L, Long::sum);
+            }
+
+            //then
+            Map<String, Long> counted = store.countByBook(YearMonth.of(2021, 3), YearMonth.of(2021, 5))
+                    .stream()
+                    .collect(Collectors.toMap(count -> count.getKey() + "@" + count.getMonth(), HistoryCount::getLoans));
+            assertThat(counted).isEqualTo(exact);
+            assertThat(store.countByBook(YearMonth.of(2021, 3), YearMonth.of(2021, 3)))
+                    .allSatisfy(count -> assertThat(count.getLoanSeconds()).isEqualTo(count.getLoans() * 2 * 24 * 60 * 60));
+        }
+
+    }
+
+    @Test
+    @DisplayName("Must keep the history when the store is opened again")
+    public void mustReopenHistoryTest() throws Exception {
+
+        //given
+        try (LoanHistoryStore store = new LoanHistoryStore(directory, 4)) {
+            for (int i = 0; i < 10; i++)
+                store.append(1L, i % 2 == 0 ? "Someone" : "Another", START, START.plusDays(1));
+        }
+
+        //when
+        try (LoanHistoryStore store = new LoanHistoryStore(directory, 4)) {
+            store.append(2L, "Someone", START, START.plusDays(1));
+
+            //then
+            assertThat(store.getRows()).isEqualTo(11);
+            assertThat(store.countByCustomer(YearMonth.of(2021, 1), YearMonth.of(2021, 1)))
+                    .containsExactlyInAnyOrder(
+                            new HistoryCount<>("Someone", YearMonth.of(2021, 1), 6, 6 * 24 * 60 * 60),
+                            new HistoryCount<>("Another", YearMonth.of(2021, 1), 5, 5 * 24 * 60 * 60));
+        }
+
+    }
+
+    @Test
+    @DisplayName("Must refuse a month range ending before it starts")
+    public void mustNotCountReversedRangeTest() throws Exception {
+
+        //given
+        try (LoanHistoryStore store = new LoanHistoryStore(directory, 4)) {
+
+            //when
+            Throwable exception = catchThrowable(() -> store.countByBook(YearMonth.of(2021, 5), YearMonth.of(2021, 3)));
+
+            //then
+            assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.studies.libraryapi.service.journal;
+
+import com.studies.libraryapi.model.entity.Book;
+import com.studies.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MutationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Must replay appended entries in order across segments and after reopening")
+    public void mustReplayAcrossSegmentsTest() {
+
+        //given
+        MutationJournal journal = new MutationJournal(directory, 4096);
+        for (long id = 1; id <= 200; id++)
+            journal.append(JournalEntry.of(JournalEntry.Type.BOOK_CREATED, createBook(id)));
+        journal.close();
+
+        //when
+        MutationJournal reopened = new MutationJournal(directory, 4096);
+        long next = reopened.append(JournalEntry.of(JournalEntry.Type.BOOK_DELETED, createBook(1L)));
+        List<JournalEntry> entries = new ArrayList<>();
+        long replayed = reopened.replay(150, entries::add);
+
+        //then
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(next).isEqualTo(201);
+        assertThat(replayed).isEqualTo(52);
+        assertThat(entries).extracting(JournalEntry::getSequence)
+                .containsExactlyElementsOf(Stream.iterate(150L, sequence -> sequence + 1).limit(52)
+                        .collect(Collectors.toList()));
+        assertThat(entries.get(0).getRecordId()).isEqualTo(150L);
+        assertThat(entries.get(0).getFields()).containsEntry("isbn", "isbn-150").containsEntry("author", null);
+        assertThat(entries.get(51).getType()).isEqualTo(JournalEntry.Type.BOOK_DELETED);
+
+    }
+
+    @Test
+    @DisplayName("Must drop a torn entry at the end of the journal and continue after the last whole one")
+    public void mustRecoverFromTornEntryTest() throws IOException {
+
+        //given
+        MutationJournal journal = new MutationJournal(directory, 4096);
+        journal.append(JournalEntry.of(JournalEntry.Type.LOAN_CREATED, createLoan()));
+        journal.append(JournalEntry.of(JournalEntry.Type.LOAN_UPDATED, createLoan()));
+        journal.close();
+        Path segment = segmentFiles().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(firstRecordEnd(file) + 12);
+            file.writeLong(-1);
+        }
+
+        //when
+        MutationJournal reopened = new MutationJournal(directory, 4096);
+        List<JournalEntry> entries = new ArrayList<>();
+        reopened.replay(1, entries::add);
+
+        //then
+        assertThat(reopened.getLastSequence()).isEqualTo(1);
+        assertThat(entries).extracting(JournalEntry::getType).containsExactly(JournalEntry.Type.LOAN_CREATED);
+        assertThat(entries.get(0).getFields()).containsEntry("customer", "Someone");
+
+    }
+
+    @Test
+    @DisplayName("Must share forces between concurrent writers and report append and replay rates")
+    public void mustGroupCommitConcurrentWritersTest() throws Exception {
+
+        //given
+        MutationJournal journal = new MutationJournal(directory, 16 * 1024 * 1024);
+        int writers = 4;
+        int perWriter = 2_000;
+        CountDownLatch done = new CountDownLatch(writers);
+
+        //when
+        long start = System.nanoTime();
+        for (int writer = 0; writer < writers; writer++) {
+            new Thread(() -> {
+                for (int i = 0; i < perWriter; i++)
+                    journal.awaitDurable(journal.append(JournalEntry.of(JournalEntry.Type.LOAN_CREATED, createLoan())));
+                done.countDown();
+            }).start();
+        }
+        assertThat(done.await(2, TimeUnit.MINUTES)).isTrue();
+        long appendNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long replayed = journal.replay(1, entry -> { });
+        long replayNanos = System.nanoTime() - start;
+
+        //then
+        assertThat(journal.getDurableSequence()).isEqualTo((long) writers * perWriter);
+        assertThat(replayed)
+                .as("%d durable appends/s, %d entries replayed/s", perSecond(writers * perWriter, appendNanos),
+                        perSecond(replayed, replayNanos))
+                .isEqualTo((long) writers * perWriter);
+
+    }
+
+    private long firstRecordEnd(RandomAccessFile file) throws IOException {
+        file.seek(0);
+        return 8 + file.readInt();
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long perSecond(long count, long nanos) {
+        return count * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+    }
+
+    private static Book createBook(Long id) {
+        return Book.builder().id(id).title("Book Title").isbn("isbn-" + id).build();
+    }
+
+    private static Loan createLoan() {
+        return Loan.builder()
+                .id(1L)
+                .book(Book.builder().id(1L).build())
+                .customer("Someone")
+                .loanDate(LocalDateTime.now())
+                .build();
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.studies.libraryapi.service.stats;
+
+import com.studies.libraryapi.service.event.LibraryEvent;
+import com.studies.libraryapi.service.event.LoanCreated;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookPopularityTest {
+
+    static LocalDateTime NOW = LocalDateTime.of(2021, 8, 10, 12, 30);
+
+    @Test
+    @DisplayName("Must rank the most borrowed books like an exact count")
+    public void mustMatchExactTopBooksTest() {
+
+        //given
+        BookPopularity popularity = popularityAt(NOW);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        List<LibraryEvent> events = new ArrayList<>();
+
+        //when
+        for (long bookId = 1; bookId <= 10; bookId++)
+            for (int i = 0; i < 1100 - bookId * 100; i++)
+                events.add(loan(bookId, NOW.minusMinutes(random.nextInt(600))));
+        while (events.size() < 100_000)
+            events.add(loan(11L + random.nextInt(50_000), NOW.minusMinutes(random.nextInt(600))));
+        Collections.shuffle(events, random);
+        events.forEach(event -> exact.merge(((LoanCreated) event).getBookId(), 1L, Long::sum));
+        popularity.onEvents(events);
+        List<BookLoanCount> trending = popularity.trending(TrendingWindow.DAY, 10);
+
+        //then
+        List<Long> exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        assertThat(trending).extracting(BookLoanCount::getBookId).containsExactlyElementsOf(exactTop);
+        assertThat(trending).allSatisfy(count -> assertThat(count.getLoans())
+                .isBetween(exact.get(count.getBookId()), exact.get(count.getBookId()) + events.size() / 1000));
+
+    }
+
+    @Test
+    @DisplayName("Must drop loans older than the window from the ranking")
+    public void mustForgetLoansOutsideWindowTest() {
+
+        //given
+        BookPopularity popularity = popularityAt(NOW);
+
+        //when
+        popularity.onEvents(Arrays.asList(
+                loan(1L, NOW.minusDays(3)),
+                loan(1L, NOW.minusDays(3)),
+                loan(2L, NOW.minusHours(2))));
+
+        //then
+        assertThat(popularity.trending(TrendingWindow.DAY, 10))
+                .containsExactly(new BookLoanCount(2L, 1));
+        assertThat(popularity.trending(TrendingWindow.WEEK, 10))
+                .containsExactly(new BookLoanCount(1L, 2), new BookLoanCount(2L, 1));
+
+    }
+
+    private BookPopularity popularityAt(LocalDateTime now) {
+        return new BookPopularity(100, 4096, 4, Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private LoanCreated loan(Long bookId, LocalDateTime at) {
+        return new LoanCreated(1L, bookId, "Someone", null, at, at);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.studies.libraryapi.service.stats;
+
+import com.studies.libraryapi.model.projection.OpenLoanCount;
+import com.studies.libraryapi.model.repository.LoanRepository;
+import com.studies.libraryapi.service.event.LoanCreated;
+import com.studies.libraryapi.service.event.LoanReopened;
+import com.studies.libraryapi.service.event.LoanReturned;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({SpringExtension.class})
+@ActiveProfiles("test")
+public class CirculationStatisticsTest {
+
+    static LocalDateTime NOW = LocalDateTime.of(2021, 8, 10, 12, 30);
+
+    @MockBean
+    LoanRepository repository;
+
+    CirculationStatistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        ZoneId zone = ZoneId.systemDefault();
+        Clock clock = Clock.fixed(NOW.atZone(zone).toInstant(), zone);
+        this.statistics = new CirculationStatistics(repository, clock);
+    }
+
+    @Test
+    @DisplayName("Must count open, late and today's loans from loan events")
+    public void mustCountLoanEventsTest() {
+
+        //given
+        LocalDateTime today = NOW.minusHours(1);
+        LocalDateTime fiveDaysAgo = NOW.minusDays(5);
+
+        //when
+        statistics.onEvents(Arrays.asList(
+                new LoanCreated(1L, 1L, "Someone", "someone@email.com", today, NOW),
+                new LoanCreated(2L, 2L, "Someone", "someone@email.com", fiveDaysAgo, NOW),
+                new LoanCreated(3L, 3L, "Someone", "someone@email.com", fiveDaysAgo, NOW),
+                new LoanReturned(3L, 3L, "Someone", fiveDaysAgo, NOW)));
+        CirculationSnapshot snapshot = statistics.snapshot();
+
+        //then
+        assertThat(snapshot.getOpenLoans()).isEqualTo(2);
+        assertThat(snapshot.getLateLoans()).isEqualTo(1);
+        assertThat(snapshot.getCheckoutsToday()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Must count a reopened loan as open again without counting another checkout")
+    public void mustCountReopenedLoanTest() {
+
+        //given
+        LocalDateTime fiveDaysAgo = NOW.minusDays(5);
+
+        //when
+        statistics.onEvents(Arrays.asList(
+                new LoanCreated(1L, 1L, "Someone", "someone@email.com", fiveDaysAgo, NOW),
+                new LoanReturned(1L, 1L, "Someone", fiveDaysAgo, NOW),
+                new LoanReopened(1L, 1L, "Someone", fiveDaysAgo, NOW)));
+        CirculationSnapshot snapshot = statistics.snapshot();
+
+        //then
+        assertThat(snapshot.getOpenLoans()).isEqualTo(1);
+        assertThat(snapshot.getLateLoans()).isEqualTo(1);
+        assertThat(snapshot.getCheckoutsToday()).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Must replace the counters with the database totals when reconciling")
+    public void mustReconcileFromDatabaseTest() {
+
+        //given
+        statistics.onEvents(Arrays.asList(new LoanCreated(1L, 1L, "Someone", null, NOW, NOW)));
+        when( repository.countOpenLoansByHour() ).thenReturn(Arrays.asList(
+                new OpenLoanCount(2021, 8, 10, 9, 3L),
+                new OpenLoanCount(2021, 8, 1, 9, 2L)));
+        when( repository.countByLoanDateGreaterThanEqual(any(LocalDateTime.class)) ).thenReturn(3L);
+
+        //when
+        statistics.reconcile();
+        CirculationSnapshot snapshot = statistics.snapshot();
+
+        //then
+        assertThat(snapshot.getOpenLoans()).isEqualTo(5);
+        assertThat(snapshot.getLateLoans()).isEqualTo(2);
+        assertThat(snapshot.getCheckoutsToday()).isEqualTo(3);
+        assertThat(snapshot.getReconciledAt()).isEqualTo(NOW);
+
+    }
+
+}
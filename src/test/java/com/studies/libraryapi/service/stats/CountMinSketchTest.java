@@ -0,0 +1,58 @@
+package com.studies.libraryapi.service.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountMinSketchTest {
+
+    @Test
+    @DisplayName("Must never underestimate and stay within the error bound of exact counts")
+    public void mustEstimateWithinErrorBoundTest() {
+
+        //given
+        int width = 1024;
+        CountMinSketch sketch = new CountMinSketch(width, 4);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+
+        //when
+        for (int i = 0; i < 200_000; i++) {
+            long key = (long) (Math.pow(random.nextDouble(), 3) * 20_000);
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        //then
+        long bound = 2 * sketch.getTotal() / width;
+        long overBound = exact.entrySet().stream()
+                .filter(entry -> sketch.estimate(entry.getKey()) - entry.getValue() > bound)
+                .count();
+        assertThat(exact).allSatisfy((key, count) -> assertThat(sketch.estimate(key)).isGreaterThanOrEqualTo(count));
+        assertThat(overBound).isLessThanOrEqualTo(exact.size() / 100);
+
+    }
+
+    @Test
+    @DisplayName("Must forget every count when cleared")
+    public void mustClearCountsTest() {
+
+        //given
+        CountMinSketch sketch = new CountMinSketch(64, 2);
+        sketch.add(1L, 5);
+
+        //when
+        sketch.clear();
+
+        //then
+        assertThat(sketch.estimate(1L)).isZero();
+        assertThat(sketch.getTotal()).isZero();
+
+    }
+
+}